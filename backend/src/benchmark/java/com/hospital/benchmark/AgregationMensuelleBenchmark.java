@@ -0,0 +1,70 @@
+package com.hospital.benchmark;
+
+import com.hospital.service.SerieMensuelle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Agrégation mensuelle de dépenses : Collectors.groupingBy par YearMonth
+ * (ancienne implémentation des prévisions) comparé à un cumul dans un tableau
+ * indexé par code de mois (SerieMensuelle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AgregationMensuelleBenchmark {
+
+    private static final int ANNEES = 5;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int nombreDepenses;
+
+    private DonneesSynthetiques.Depense[] depenses;
+
+    @Setup
+    public void generer() {
+        depenses = DonneesSynthetiques.depenses(nombreDepenses, ANNEES);
+    }
+
+    @Benchmark
+    public Map<YearMonth, Double> groupingByYearMonth() {
+        return Arrays.stream(depenses)
+            .collect(Collectors.groupingBy(
+                d -> YearMonth.from(d.date()),
+                TreeMap::new,
+                Collectors.summingDouble(DonneesSynthetiques.Depense::montant)
+            ));
+    }
+
+    @Benchmark
+    public double[] tableauParCodeMois() {
+        int dernier = SerieMensuelle.code(YearMonth.now());
+        int premier = dernier - ANNEES * 12 - 1;
+        double[] totaux = new double[dernier - premier + 1];
+        for (DonneesSynthetiques.Depense depense : depenses) {
+            LocalDate date = depense.date();
+            totaux[date.getYear() * 12 + date.getMonthValue() - 1 - premier] += depense.montant();
+        }
+        return totaux;
+    }
+}
@@ -0,0 +1,55 @@
+package com.hospital.benchmark;
+
+import com.hospital.model.BudgetService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul des champs dérivés d'un budget (écart, taux d'utilisation, statut),
+ * exécuté par les callbacks @PrePersist/@PreUpdate à chaque sauvegarde.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BudgetServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int nombreBudgets;
+
+    private BudgetService[] budgets;
+
+    @Setup
+    public void generer() {
+        double[] montants = DonneesSynthetiques.montants(nombreBudgets);
+        budgets = new BudgetService[nombreBudgets];
+        for (int i = 0; i < nombreBudgets; i++) {
+            BudgetService budget = new BudgetService();
+            budget.setBudgetPrevu(12_000.0 + (i % 7) * 1_000.0);
+            budget.setBudgetReel(montants[i]);
+            budgets[i] = budget;
+        }
+    }
+
+    @Benchmark
+    public void recalculer(Blackhole bh) {
+        for (BudgetService budget : budgets) {
+            budget.recalculer();
+            bh.consume(budget.getStatut());
+        }
+    }
+}
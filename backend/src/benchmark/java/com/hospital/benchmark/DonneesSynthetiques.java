@@ -0,0 +1,42 @@
+package com.hospital.benchmark;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Générateur déterministe de dépenses synthétiques pour les benchmarks.
+ * Les dépenses sont réparties sur les {@code annees} dernières années avec une
+ * tendance légèrement haussière et un bruit aléatoire.
+ */
+final class DonneesSynthetiques {
+
+    static final long GRAINE = 42L;
+
+    private DonneesSynthetiques() {
+    }
+
+    record Depense(LocalDate date, double montant) {
+    }
+
+    static Depense[] depenses(int nombre, int annees) {
+        SplittableRandom aleatoire = new SplittableRandom(GRAINE);
+        LocalDate fin = LocalDate.now();
+        int jours = annees * 365;
+        Depense[] depenses = new Depense[nombre];
+        for (int i = 0; i < nombre; i++) {
+            int decalage = aleatoire.nextInt(jours);
+            double tendance = 1.0 + (jours - decalage) / (double) jours * 0.2;
+            depenses[i] = new Depense(fin.minusDays(decalage), 50.0 + aleatoire.nextDouble(2000.0) * tendance);
+        }
+        return depenses;
+    }
+
+    static double[] montants(int nombre) {
+        SplittableRandom aleatoire = new SplittableRandom(GRAINE);
+        double[] montants = new double[nombre];
+        for (int i = 0; i < nombre; i++) {
+            montants[i] = 10_000.0 + i * 0.5 + aleatoire.nextDouble(5_000.0);
+        }
+        return montants;
+    }
+}
@@ -0,0 +1,200 @@
+package com.hospital.benchmark;
+
+import com.hospital.model.HistoriqueDepense;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+/**
+ * Compare, à travers Hibernate, l'insertion de dépenses avec l'ancien mapping
+ * IDENTITY (une requête par entité, le batch JDBC est désactivé car la clé
+ * doit être relue après chaque INSERT) et avec le mapping réel de
+ * {@link HistoriqueDepense} (séquence "pooled" d'allocationSize 50, insertions
+ * envoyées en batch). Les deux entités partagent les mêmes colonnes et la même
+ * configuration que l'application : hibernate.jdbc.batch_size=50 et
+ * hibernate.order_inserts=true.
+ *
+ * Par défaut la base est H2 en mémoire ; sur PostgreSQL l'écart est plus
+ * grand car chaque requête paie un aller-retour réseau :
+ *
+ *   mvn -Pbenchmark compile exec:exec -Djmh.args="InsertionIdentifiants
+ *       -p url=jdbc:postgresql://localhost:5432/hospital_bench -p utilisateur=postgres -p motDePasse=postgres"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertionIdentifiantsBenchmark {
+
+    private static final int TAILLE_BATCH = 50;
+
+    @Param({"jdbc:h2:mem:bench_insertion;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"})
+    private String url;
+
+    @Param({"sa"})
+    private String utilisateur;
+
+    @Param({""})
+    private String motDePasse;
+
+    @Param({"1000", "10000"})
+    private int lignes;
+
+    private EntityManagerFactory emf;
+
+    @Setup(Level.Trial)
+    public void ouvrir() {
+        emf = new Configuration()
+            .addAnnotatedClass(HistoriqueDepense.class)
+            .addAnnotatedClass(DepenseIdentite.class)
+            .setProperty(AvailableSettings.URL, url)
+            .setProperty(AvailableSettings.USER, utilisateur)
+            .setProperty(AvailableSettings.PASS, motDePasse)
+            .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(TAILLE_BATCH))
+            .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+            .buildSessionFactory();
+    }
+
+    @Setup(Level.Iteration)
+    public void vider() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM HistoriqueDepense").executeUpdate();
+            em.createQuery("DELETE FROM DepenseIdentite").executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() {
+        emf.close();
+    }
+
+    @Benchmark
+    public void identite(Blackhole bh) {
+        persister(bh, i -> {
+            DepenseIdentite depense = new DepenseIdentite();
+            depense.serviceId = 1L + i % 10;
+            depense.date = date(i);
+            depense.montant = 100.0 + i % 1000;
+            depense.typeDepense = type(i);
+            depense.soinId = (long) i;
+            depense.description = "Dépense #" + i;
+            depense.createdAt = LocalDateTime.now();
+            return depense;
+        });
+    }
+
+    @Benchmark
+    public void sequencePooled(Blackhole bh) {
+        persister(bh, i -> {
+            HistoriqueDepense depense = new HistoriqueDepense();
+            depense.setServiceId(1L + i % 10);
+            depense.setDate(date(i));
+            depense.setMontant(100.0 + i % 1000);
+            depense.setTypeDepense(type(i));
+            depense.setSoinId((long) i);
+            depense.setDescription("Dépense #" + i);
+            return depense;
+        });
+    }
+
+    /**
+     * Boucle persist/flush/clear par paquets de TAILLE_BATCH, comme un import
+     * en masse ; le contexte de persistance reste borné quel que soit le volume.
+     */
+    private void persister(Blackhole bh, IntFunction<Object> fabrique) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            for (int i = 0; i < lignes; i++) {
+                Object depense = fabrique.apply(i);
+                em.persist(depense);
+                bh.consume(depense);
+                if ((i + 1) % TAILLE_BATCH == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static LocalDate date(int i) {
+        return LocalDate.of(2025, 1 + i % 12, 1 + i % 28);
+    }
+
+    private static HistoriqueDepense.TypeDepense type(int i) {
+        return HistoriqueDepense.TypeDepense.values()[i % 3];
+    }
+
+    /**
+     * Copie des colonnes de historique_depense avec l'ancienne génération
+     * d'identifiants IDENTITY.
+     */
+    @Entity(name = "DepenseIdentite")
+    @Table(name = "bench_depense_identite")
+    public static class DepenseIdentite {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+
+        @Column(name = "service_id", nullable = false)
+        Long serviceId;
+
+        @Column(nullable = false)
+        LocalDate date;
+
+        @Column(nullable = false)
+        Double montant;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "type_depense", nullable = false)
+        HistoriqueDepense.TypeDepense typeDepense;
+
+        @Column(name = "soin_id")
+        Long soinId;
+
+        @Column(columnDefinition = "TEXT")
+        String description;
+
+        @Column(name = "created_at")
+        LocalDateTime createdAt;
+    }
+}
@@ -0,0 +1,86 @@
+package com.hospital.benchmark;
+
+import com.hospital.security.JwtService;
+import com.hospital.security.ValidationJwt;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit de génération et de validation des tokens JWT (4 threads, comme
+ * plusieurs requêtes authentifiées en parallèle) : clé et parser précalculés,
+ * ancienne validation (clé et parser reconstruits, token analysé trois fois)
+ * et validation via le cache de ValidationJwt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "aG9zcGl0YWwtc2VjcmV0LWtleS1taW5pbXVtLTI1Ni1iaXRzLXBvdXItaHMyNTYtYWxnb3JpdGhtZS1zZWN1cmlzZQ==";
+    private static final String EMAIL = "admin@hospital.com";
+
+    private JwtService jwtService;
+    private ValidationJwt validationJwt;
+    private String token;
+
+    @Setup
+    public void initialiser() {
+        jwtService = new JwtService(SECRET, 86_400_000L);
+        validationJwt = new ValidationJwt(jwtService, null, 10_000, 300_000L);
+        token = jwtService.generateToken(EMAIL, "ADMIN", 1);
+    }
+
+    @Benchmark
+    public String generation() {
+        return jwtService.generateToken(EMAIL, "ADMIN", 1);
+    }
+
+    @Benchmark
+    public boolean validation() {
+        return jwtService.isTokenValid(token, EMAIL, 1);
+    }
+
+    @Benchmark
+    public ValidationJwt.JetonVerifie validationEnCache() {
+        return validationJwt.verifier(token);
+    }
+
+    /**
+     * Validation telle qu'elle était faite avant : nouvelle clé et nouveau
+     * parser à chaque analyse, une analyse par claim lue (email, version, expiration)
+     */
+    @Benchmark
+    public boolean validationSansPrecalcul() {
+        String email = analyserSansPrecalcul(token).getSubject();
+        Integer version = analyserSansPrecalcul(token).get("pwdVersion", Integer.class);
+        boolean expire = analyserSansPrecalcul(token).getExpiration().getTime() < System.currentTimeMillis();
+        return email.equals(EMAIL) && !expire && version == 1;
+    }
+
+    private static Claims analyserSansPrecalcul(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
@@ -0,0 +1,78 @@
+package com.hospital.benchmark;
+
+import com.hospital.service.MoteurPrevision;
+import com.hospital.service.PrevisionService;
+import com.hospital.service.SerieMensuelle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Algorithmes de prévision sur des séries synthétiques.
+ * Les noyaux de MoteurPrevision sont mesurés sur la série entière (fenêtre
+ * de la taille de la série) ; calculerToutesMethodes mesure le chemin complet
+ * d'une prévision sur une série mensuelle déjà chargée. Une série compte un
+ * montant par mois : de 1 à 10 ans d'historique d'un service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrevisionBenchmark {
+
+    @Param({"12", "36", "60", "120"})
+    private int nombreMois;
+
+    private double[] montants;
+    private SerieMensuelle serie;
+    private PrevisionService previsionService;
+
+    @Setup
+    public void generer() {
+        montants = DonneesSynthetiques.montants(nombreMois);
+
+        // Série mensuelle continue se terminant le mois précédent
+        int dernier = SerieMensuelle.code(YearMonth.now().minusMonths(1));
+        int[] mois = new int[nombreMois];
+        for (int i = 0; i < nombreMois; i++) {
+            mois[i] = dernier - nombreMois + 1 + i;
+        }
+        serie = new SerieMensuelle(mois, montants);
+
+        // Seul le calcul sur série est mesuré : aucun dépôt n'est utilisé
+        previsionService = new PrevisionService(null, null, null, null, null);
+    }
+
+    @Benchmark
+    public double moyenneMobile() {
+        return MoteurPrevision.moyenneMobile(montants, 0, nombreMois, nombreMois);
+    }
+
+    @Benchmark
+    public double moyenneMobilePonderee() {
+        return MoteurPrevision.moyenneMobilePonderee(montants, 0, nombreMois, nombreMois);
+    }
+
+    @Benchmark
+    public double[] regressionLineaire() {
+        return MoteurPrevision.regressionLineaire(montants, 0, nombreMois);
+    }
+
+    @Benchmark
+    public PrevisionService.PrevisionsCompletes calculerToutesMethodes() {
+        return previsionService.calculerToutesMethodes(serie, 6, 3);
+    }
+}
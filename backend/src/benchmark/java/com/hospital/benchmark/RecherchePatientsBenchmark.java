@@ -0,0 +1,145 @@
+package com.hospital.benchmark;
+
+import com.hospital.dto.PatientSuggestionDTO;
+import com.hospital.service.IndexRecherchePatients;
+import com.hospital.service.IndexSaisiePatients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche de patients : index de trigrammes en mémoire comparé à l'ancienne
+ * requête LIKE '%q%' sur nom, prénom et NSS (H2 en mémoire, mêmes données),
+ * et index par préfixe de la saisie semi-automatique (10 suggestions).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecherchePatientsBenchmark {
+
+    private static final String[] SYLLABES = {
+        "ma", "ber", "tho", "pe", "ro", "du", "mo", "lau", "si", "le", "fe", "vre", "ben", "ali",
+        "gar", "nier", "che", "val", "fon", "tai", "ne", "rou", "sseau", "mer", "cier", "bla", "taz", "idri"
+    };
+
+    private static final String[] PRENOMS = {
+        "Jean", "Marie", "Pierre", "Sophie", "Luc", "Camille", "Nicolas", "Julie", "Hugo", "Léa",
+        "Mohamed", "Fatima", "Youssef", "Amina", "Karim", "Salma", "Émilie", "Hélène", "Noé", "Inès"
+    };
+
+    @Param({"1000000"})
+    private int nombrePatients;
+
+    @Param({"m", "dur", "lefe", "benali jean", "1000001234"})
+    private String requete;
+
+    private IndexRecherchePatients index;
+    private IndexSaisiePatients indexSaisie;
+    private Connection connexion;
+    private PreparedStatement rechercheLike;
+
+    @Setup(Level.Trial)
+    public void generer() throws SQLException {
+        index = new IndexRecherchePatients(null);
+        indexSaisie = new IndexSaisiePatients(null);
+        connexion = DriverManager.getConnection("jdbc:h2:mem:bench_recherche;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement st = connexion.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS patient");
+            st.execute("CREATE TABLE patient (id BIGINT PRIMARY KEY, nom VARCHAR(100), prenom VARCHAR(100), " +
+                       "numero_securite_sociale VARCHAR(15))");
+        }
+        connexion.setAutoCommit(false);
+
+        SplittableRandom aleatoire = new SplittableRandom(DonneesSynthetiques.GRAINE);
+        try (PreparedStatement insertion = connexion.prepareStatement(
+                "INSERT INTO patient (id, nom, prenom, numero_securite_sociale) VALUES (?, ?, ?, ?)")) {
+            for (long id = 1; id <= nombrePatients; id++) {
+                String nom = nom(aleatoire);
+                String prenom = PRENOMS[aleatoire.nextInt(PRENOMS.length)];
+                String nss = Long.toString(100_000_000_000_000L + id);
+                index.indexer(id, nom, prenom, nss);
+                indexSaisie.indexer(id, nom, prenom, nss);
+
+                insertion.setLong(1, id);
+                insertion.setString(2, nom);
+                insertion.setString(3, prenom);
+                insertion.setString(4, nss);
+                insertion.addBatch();
+                if (id % 1000 == 0) {
+                    insertion.executeBatch();
+                }
+            }
+            insertion.executeBatch();
+        }
+        connexion.commit();
+
+        rechercheLike = connexion.prepareStatement(
+            "SELECT id, nom, prenom, numero_securite_sociale FROM patient WHERE " +
+            "LOWER(nom) LIKE LOWER(CONCAT('%', ?, '%')) OR " +
+            "LOWER(prenom) LIKE LOWER(CONCAT('%', ?, '%')) OR " +
+            "numero_securite_sociale LIKE CONCAT('%', ?, '%')");
+    }
+
+    @TearDown(Level.Trial)
+    public void fermer() throws SQLException {
+        connexion.close();
+    }
+
+    @Benchmark
+    public List<Long> indexTrigrammes() {
+        return index.rechercher(requete, 50);
+    }
+
+    @Benchmark
+    public List<PatientSuggestionDTO> indexSaisie() {
+        return indexSaisie.suggerer(requete, 10, () -> false);
+    }
+
+    @Benchmark
+    public List<Long> requeteLike() throws SQLException {
+        rechercheLike.setString(1, requete);
+        rechercheLike.setString(2, requete);
+        rechercheLike.setString(3, requete);
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet rs = rechercheLike.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private static String nom(SplittableRandom aleatoire) {
+        StringBuilder nom = new StringBuilder();
+        int syllabes = 2 + aleatoire.nextInt(2);
+        for (int i = 0; i < syllabes; i++) {
+            nom.append(SYLLABES[aleatoire.nextInt(SYLLABES.length)]);
+        }
+        nom.setCharAt(0, Character.toUpperCase(nom.charAt(0)));
+        return nom.toString();
+    }
+}
@@ -0,0 +1,227 @@
+package com.hospital.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scénario de charge de l'API REST, à lancer contre un backend démarré avec
+ * le profil "loadtest" (données synthétiques, voir GenerateurDonneesLoadTest).
+ *
+ * Chaque client virtuel enchaîne des requêtes tirées au hasard parmi les
+ * endpoints du scénario ; les requêtes de la phase de chauffe ne sont pas
+ * mesurées. Le rapport donne, par endpoint, le nombre de requêtes, les
+ * erreurs, le débit et les latences p50/p90/p99/max.
+ *
+ *   mvn -Pbenchmark compile exec:exec -Dbenchmark.main=com.hospital.benchmark.ScenarioChargeApi
+ *       -Dbenchmark.args="--url http://localhost:8080 --clients 32 --duree 60 --chauffe 15"
+ */
+public class ScenarioChargeApi {
+
+    private static final String[] PREFIXES_NOMS = {
+        "Mar", "Ber", "Tho", "Pet", "Rob", "Dur", "Dub", "Mor", "Lau", "Sim", "Dup", "Ben", "Ala", "Tazi"
+    };
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client;
+    private final String url;
+    private final int nombreServices;
+    private String token;
+
+    private ScenarioChargeApi(String url, int nombreServices) {
+        this.url = url;
+        this.nombreServices = nombreServices;
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = lireOptions(args);
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        int clients = Integer.parseInt(options.getOrDefault("clients", "16"));
+        int duree = Integer.parseInt(options.getOrDefault("duree", "60"));
+        int chauffe = Integer.parseInt(options.getOrDefault("chauffe", "10"));
+        int services = Integer.parseInt(options.getOrDefault("services", "12"));
+
+        ScenarioChargeApi scenario = new ScenarioChargeApi(url, services);
+        scenario.connecter(
+            options.getOrDefault("email", "loadtest@hospital.com"),
+            options.getOrDefault("mot-de-passe", "loadtest123"));
+
+        System.out.printf("Scénario: %s, %d clients, %d s de chauffe, %d s de mesure%n", url, clients, chauffe, duree);
+        scenario.executer(clients, chauffe, duree);
+    }
+
+    /**
+     * Endpoints du scénario : nom affiché et construction de l'URI à partir d'un tirage aléatoire
+     */
+    private Map<String, Function<SplittableRandom, String>> endpoints() {
+        Map<String, Function<SplittableRandom, String>> endpoints = new LinkedHashMap<>();
+        endpoints.put("GET /api/patients/search", r ->
+            "/api/patients/search?q=" + PREFIXES_NOMS[r.nextInt(PREFIXES_NOMS.length)]);
+        endpoints.put("GET /api/prevision/{id}/complete", r ->
+            "/api/prevision/" + (1 + r.nextInt(nombreServices)) + "/complete");
+        endpoints.put("GET /api/prevision/{id}/moyenne-mobile", r ->
+            "/api/prevision/" + (1 + r.nextInt(nombreServices)) + "/moyenne-mobile?nombreMois=3&periodeMoyenne=3");
+        endpoints.put("GET /api/finance/historique/{id}", r ->
+            "/api/finance/historique/" + (1 + r.nextInt(nombreServices)) + "?debut=" + LocalDate.now().minusMonths(1));
+        endpoints.put("GET /api/alertes", r -> "/api/alertes");
+        endpoints.put("GET /api/alertes/critiques", r -> "/api/alertes/critiques");
+        endpoints.put("GET /api/rendez-vous/date/{date}", r ->
+            "/api/rendez-vous/date/" + LocalDate.now().plusDays(r.nextInt(7)));
+        return endpoints;
+    }
+
+    private void connecter(String email, String motDePasse) throws IOException, InterruptedException {
+        HttpRequest requete = HttpRequest.newBuilder(URI.create(url + "/api/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"email\":\"" + email + "\",\"password\":\"" + motDePasse + "\"}"))
+            .build();
+        HttpResponse<String> reponse = client.send(requete, HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOKEN.matcher(reponse.body());
+        if (reponse.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Connexion impossible (" + reponse.statusCode() + "): " + reponse.body());
+        }
+        token = matcher.group(1);
+    }
+
+    private void executer(int clients, int chauffe, int duree) throws InterruptedException {
+        Map<String, Function<SplittableRandom, String>> endpoints = endpoints();
+        List<String> noms = new ArrayList<>(endpoints.keySet());
+
+        long debutMesure = System.nanoTime() + TimeUnit.SECONDS.toNanos(chauffe);
+        long finMesure = debutMesure + TimeUnit.SECONDS.toNanos(duree);
+
+        Mesures[] mesures = new Mesures[clients];
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            Mesures mesuresClient = new Mesures(noms.size());
+            mesures[c] = mesuresClient;
+            SplittableRandom aleatoire = new SplittableRandom(c);
+            pool.submit(() -> {
+                while (System.nanoTime() < finMesure) {
+                    int indice = aleatoire.nextInt(noms.size());
+                    String chemin = endpoints.get(noms.get(indice)).apply(aleatoire);
+                    long debut = System.nanoTime();
+                    boolean succes = appeler(chemin);
+                    long fin = System.nanoTime();
+                    if (debut >= debutMesure && fin <= finMesure) {
+                        mesuresClient.ajouter(indice, fin - debut, succes);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(chauffe + duree + 60L, TimeUnit.SECONDS);
+
+        afficherRapport(noms, mesures, duree);
+    }
+
+    private boolean appeler(String chemin) {
+        HttpRequest requete = HttpRequest.newBuilder(URI.create(url + chemin))
+            .header("Authorization", "Bearer " + token)
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+        try {
+            HttpResponse<Void> reponse = client.send(requete, HttpResponse.BodyHandlers.discarding());
+            return reponse.statusCode() < 400;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void afficherRapport(List<String> noms, Mesures[] mesures, int duree) {
+        System.out.printf("%n%-42s %9s %7s %9s %9s %9s %9s %9s%n",
+                          "Endpoint", "Requêtes", "Erreurs", "Req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        long totalRequetes = 0;
+        for (int i = 0; i < noms.size(); i++) {
+            int nombre = 0;
+            int erreurs = 0;
+            for (Mesures m : mesures) {
+                nombre += m.nombres[i];
+                erreurs += m.erreurs[i];
+            }
+            long[] latences = new long[nombre];
+            int position = 0;
+            for (Mesures m : mesures) {
+                System.arraycopy(m.latences[i], 0, latences, position, m.nombres[i]);
+                position += m.nombres[i];
+            }
+            Arrays.sort(latences);
+            totalRequetes += nombre;
+
+            System.out.printf(Locale.ROOT, "%-42s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                              noms.get(i), nombre, erreurs, nombre / (double) duree,
+                              percentile(latences, 0.50), percentile(latences, 0.90),
+                              percentile(latences, 0.99), percentile(latences, 1.0));
+        }
+        System.out.printf(Locale.ROOT, "%nTotal: %d requêtes, %.1f req/s%n", totalRequetes, totalRequetes / (double) duree);
+    }
+
+    private static double percentile(long[] latencesTriees, double rang) {
+        if (latencesTriees.length == 0) {
+            return Double.NaN;
+        }
+        int indice = (int) Math.ceil(rang * latencesTriees.length) - 1;
+        return latencesTriees[Math.max(0, indice)] / 1_000_000.0;
+    }
+
+    private static Map<String, String> lireOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Latences d'un client virtuel, par endpoint (aucune synchronisation :
+     * chaque client n'écrit que dans ses propres tableaux)
+     */
+    private static final class Mesures {
+        private final long[][] latences;
+        private final int[] nombres;
+        private final int[] erreurs;
+
+        private Mesures(int nombreEndpoints) {
+            latences = new long[nombreEndpoints][1024];
+            nombres = new int[nombreEndpoints];
+            erreurs = new int[nombreEndpoints];
+        }
+
+        private void ajouter(int endpoint, long latence, boolean succes) {
+            if (nombres[endpoint] == latences[endpoint].length) {
+                latences[endpoint] = Arrays.copyOf(latences[endpoint], nombres[endpoint] * 2);
+            }
+            latences[endpoint][nombres[endpoint]++] = latence;
+            if (!succes) {
+                erreurs[endpoint]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.hospital.config;
+
+import com.hospital.model.*;
+import com.hospital.repository.PatientRepository;
+import com.hospital.repository.UtilisateurRepository;
+import com.hospital.service.AgregatDepenseService;
+import com.hospital.service.FinanceService;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Générateur de données synthétiques pour les tests de charge (profil "loadtest").
+ * Crée services, patients, soins (avec leurs dépenses), rendez-vous et un
+ * utilisateur de test, puis reconstruit les agrégats mensuels et les budgets.
+ * Les insertions sont faites par lots (une transaction par lot, contexte de
+ * persistance vidé après chaque lot) pour garder une mémoire constante.
+ * La génération est sautée si la base contient déjà des patients.
+ */
+@Component
+@Profile("loadtest")
+@RequiredArgsConstructor
+@Slf4j
+public class GenerateurDonneesLoadTest implements CommandLineRunner {
+
+    private static final String[] NOMS = {
+        "Martin", "Bernard", "Thomas", "Petit", "Robert", "Richard", "Durand", "Dubois",
+        "Moreau", "Laurent", "Simon", "Michel", "Lefebvre", "Leroy", "Roux", "David",
+        "Bertrand", "Morel", "Fournier", "Girard", "Bonnet", "Dupont", "Lambert", "Fontaine",
+        "Rousseau", "Vincent", "Muller", "Lefèvre", "Faure", "André", "Mercier", "Blanc",
+        "Guérin", "Boyer", "Garnier", "Chevalier", "François", "Legrand", "Gauthier", "Garcia",
+        "Benali", "El Amrani", "Alaoui", "Bennani", "Tazi", "Idrissi", "Chraibi", "Berrada"
+    };
+
+    private static final String[] PRENOMS = {
+        "Jean", "Marie", "Pierre", "Sophie", "Luc", "Camille", "Nicolas", "Julie",
+        "Thomas", "Léa", "Hugo", "Chloé", "Louis", "Emma", "Gabriel", "Inès",
+        "Mohamed", "Fatima", "Youssef", "Amina", "Karim", "Salma", "Hassan", "Nadia"
+    };
+
+    private static final String[] SERVICES = {
+        "Cardiologie", "Urgences", "Chirurgie", "Pédiatrie", "Radiologie", "Neurologie",
+        "Oncologie", "Maternité", "Orthopédie", "Réanimation", "Dermatologie", "Ophtalmologie"
+    };
+
+    private static final String[] TYPES_SOIN = {
+        "Consultation", "Examen", "Imagerie", "Intervention", "Hospitalisation", "Analyse"
+    };
+
+    private static final RendezVous.StatutRendezVous[] STATUTS_RDV = RendezVous.StatutRendezVous.values();
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final PatientRepository patientRepository;
+    private final UtilisateurRepository utilisateurRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final AgregatDepenseService agregatDepenseService;
+    private final FinanceService financeService;
+
+    @Value("${loadtest.services:12}")
+    private int nombreServices;
+
+    @Value("${loadtest.patients:100000}")
+    private int nombrePatients;
+
+    @Value("${loadtest.soins:1000000}")
+    private int nombreSoins;
+
+    @Value("${loadtest.rendez-vous:200000}")
+    private int nombreRendezVous;
+
+    @Value("${loadtest.annees:5}")
+    private int annees;
+
+    @Value("${loadtest.taille-lot:5000}")
+    private int tailleLot;
+
+    @Value("${loadtest.utilisateur.email:loadtest@hospital.com}")
+    private String emailUtilisateur;
+
+    @Value("${loadtest.utilisateur.mot-de-passe:loadtest123}")
+    private String motDePasseUtilisateur;
+
+    @Override
+    public void run(String... args) {
+        creerUtilisateur();
+
+        if (patientRepository.count() > 0) {
+            log.info("Données de charge déjà présentes, génération ignorée");
+            return;
+        }
+
+        long debut = System.currentTimeMillis();
+        SplittableRandom aleatoire = new SplittableRandom(42L);
+
+        long[] services = genererServices();
+        long[] patients = genererPatients(aleatoire);
+        genererSoins(aleatoire, services, patients);
+        genererRendezVous(aleatoire, patients);
+
+        agregatDepenseService.reconstruire();
+        financeService.recalculerBudgetsMoisCourantEnMasse();
+
+        log.info("Données de charge générées en {} s: {} services, {} patients, {} soins, {} rendez-vous",
+                 (System.currentTimeMillis() - debut) / 1000,
+                 services.length, patients.length, nombreSoins, nombreRendezVous);
+    }
+
+    private void creerUtilisateur() {
+        if (utilisateurRepository.findByEmail(emailUtilisateur).isPresent()) {
+            return;
+        }
+        Utilisateur utilisateur = new Utilisateur();
+        utilisateur.setEmail(emailUtilisateur);
+        utilisateur.setMotDePasse(passwordEncoder.encode(motDePasseUtilisateur));
+        utilisateur.setNom("Charge");
+        utilisateur.setPrenom("Test");
+        utilisateur.setRole(Role.ADMIN);
+        utilisateur.setPasswordVersion(1);
+        utilisateurRepository.save(utilisateur);
+        log.info("Utilisateur de test de charge créé: {}", emailUtilisateur);
+    }
+
+    private long[] genererServices() {
+        long[] ids = new long[nombreServices];
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < nombreServices; i++) {
+                com.hospital.model.Service service = new com.hospital.model.Service();
+                service.setNom(SERVICES[i % SERVICES.length] + (i < SERVICES.length ? "" : " " + (i / SERVICES.length + 1)));
+                service.setBudgetMensuel(100_000.0 + (i % 5) * 25_000.0);
+                service.setBudgetAnnuel(service.getBudgetMensuel() * 12);
+                entityManager.persist(service);
+                ids[i] = service.getId();
+            }
+        });
+        return ids;
+    }
+
+    private long[] genererPatients(SplittableRandom aleatoire) {
+        long[] ids = new long[nombrePatients];
+        for (int debut = 0; debut < nombrePatients; debut += tailleLot) {
+            int fin = Math.min(debut + tailleLot, nombrePatients);
+            int premier = debut;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = premier; i < fin; i++) {
+                    Patient patient = new Patient();
+                    patient.setNom(NOMS[aleatoire.nextInt(NOMS.length)]);
+                    patient.setPrenom(PRENOMS[aleatoire.nextInt(PRENOMS.length)]);
+                    patient.setDateNaissance(LocalDate.of(1930 + aleatoire.nextInt(90), 1 + aleatoire.nextInt(12),
+                                                          1 + aleatoire.nextInt(28)));
+                    patient.setNumeroSecuriteSociale(String.format("%015d", 100_000_000_000_000L + i));
+                    entityManager.persist(patient);
+                    ids[i] = patient.getId();
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            log.debug("Patients générés: {}/{}", fin, nombrePatients);
+        }
+        return ids;
+    }
+
+    /**
+     * Chaque soin produit trois dépenses (personnel 60 %, matériel 25 %,
+     * consommables 15 %), réparties sur les dernières années
+     */
+    private void genererSoins(SplittableRandom aleatoire, long[] services, long[] patients) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        int minutes = annees * 365 * 24 * 60;
+
+        for (int debut = 0; debut < nombreSoins; debut += tailleLot) {
+            int fin = Math.min(debut + tailleLot, nombreSoins);
+            int premier = debut;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = premier; i < fin; i++) {
+                    Soin soin = new Soin();
+                    soin.setPatientId(patients[aleatoire.nextInt(patients.length)]);
+                    soin.setServiceId(services[aleatoire.nextInt(services.length)]);
+                    soin.setTypeSoin(TYPES_SOIN[aleatoire.nextInt(TYPES_SOIN.length)]);
+                    soin.setCout(Math.round((50.0 + aleatoire.nextDouble(3000.0)) * 100) / 100.0);
+                    soin.setDateSoin(maintenant.minusMinutes(aleatoire.nextInt(minutes)));
+                    entityManager.persist(soin);
+
+                    LocalDate date = soin.getDateSoin().toLocalDate();
+                    persisterDepense(soin, date, soin.getCout() * 0.60, HistoriqueDepense.TypeDepense.PERSONNEL);
+                    persisterDepense(soin, date, soin.getCout() * 0.25, HistoriqueDepense.TypeDepense.MATERIEL);
+                    persisterDepense(soin, date, soin.getCout() * 0.15, HistoriqueDepense.TypeDepense.CONSOMMABLES);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            log.debug("Soins générés: {}/{}", fin, nombreSoins);
+        }
+    }
+
+    private void persisterDepense(Soin soin, LocalDate date, double montant, HistoriqueDepense.TypeDepense type) {
+        HistoriqueDepense depense = new HistoriqueDepense();
+        depense.setServiceId(soin.getServiceId());
+        depense.setDate(date);
+        depense.setMontant(montant);
+        depense.setTypeDepense(type);
+        depense.setSoinId(soin.getId());
+        entityManager.persist(depense);
+    }
+
+    /**
+     * Rendez-vous répartis sur l'année écoulée et les trois prochains mois
+     */
+    private void genererRendezVous(SplittableRandom aleatoire, long[] patients) {
+        LocalDateTime origine = LocalDate.now().minusYears(1).atTime(8, 0);
+        int jours = 365 + 90;
+
+        for (int debut = 0; debut < nombreRendezVous; debut += tailleLot) {
+            int fin = Math.min(debut + tailleLot, nombreRendezVous);
+            int premier = debut;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = premier; i < fin; i++) {
+                    RendezVous rendezVous = new RendezVous();
+                    rendezVous.setPatient(entityManager.getReference(Patient.class,
+                                                                     patients[aleatoire.nextInt(patients.length)]));
+                    rendezVous.setDateHeure(origine.plusDays(aleatoire.nextInt(jours))
+                                                   .plusMinutes(15L * aleatoire.nextInt(40)));
+                    rendezVous.setMotif(TYPES_SOIN[aleatoire.nextInt(TYPES_SOIN.length)]);
+                    rendezVous.setStatut(STATUTS_RDV[aleatoire.nextInt(STATUTS_RDV.length)]);
+                    entityManager.persist(rendezVous);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            log.debug("Rendez-vous générés: {}/{}", fin, nombreRendezVous);
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.hospital.config;
 
-import com.hospital.repository.UtilisateurRepository;
 import com.hospital.security.JwtAuthenticationFilter;
-import com.hospital.security.JwtService;
+import com.hospital.security.ValidationJwt;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,8 +32,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
-    private final JwtService jwtService;
-    private final UtilisateurRepository utilisateurRepository;
+    private final ValidationJwt validationJwt;
 
     /**
      * Bean BCryptPasswordEncoder pour le hachage sécurisé des mots de passe
@@ -57,6 +56,10 @@ public class SecurityConfig {
             
             // Configure les autorisations
             .authorizeHttpRequests(auth -> auth
+                // Redistributions internes (fin d'un flux SSE ou NDJSON, page d'erreur) :
+                // la requête d'origine a déjà été autorisée
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+
                 // Endpoints publics (login, swagger, etc.)
                 .requestMatchers("/api/auth/login").permitAll()
                 .requestMatchers("/api/auth/logout").permitAll()
@@ -83,7 +86,7 @@ public class SecurityConfig {
             
             // Ajoute le filtre JWT avant le filtre d'authentification standard
             .addFilterBefore(
-                new JwtAuthenticationFilter(jwtService, utilisateurRepository),
+                new JwtAuthenticationFilter(validationJwt),
                 UsernamePasswordAuthenticationFilter.class
             )
             
@@ -1,13 +1,24 @@
 package com.hospital.controller;
 
+import com.hospital.dto.RapportAlertesPredictivesDTO;
+import com.hospital.dto.RapportArchivageAlertesDTO;
 import com.hospital.model.Alerte;
 import com.hospital.service.AlerteService;
+import com.hospital.service.AlertesPredictivesService;
+import com.hospital.service.ArchivageAlertesService;
+import com.hospital.service.DetecteurAnomaliesDepenses;
+import com.hospital.service.DiffusionAlertes;
+import com.hospital.service.EvaluateurAlertes;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Contrôleur REST pour la gestion des alertes
@@ -19,6 +30,11 @@ import java.util.Map;
 public class AlerteController {
 
     private final AlerteService alerteService;
+    private final EvaluateurAlertes evaluateurAlertes;
+    private final DetecteurAnomaliesDepenses detecteurAnomaliesDepenses;
+    private final DiffusionAlertes diffusionAlertes;
+    private final ArchivageAlertesService archivageAlertesService;
+    private final AlertesPredictivesService alertesPredictivesService;
 
     /**
      * Récupère toutes les alertes actives
@@ -52,6 +68,32 @@ public class AlerteController {
         return ResponseEntity.ok(alerteService.getAlertesCritiques());
     }
 
+    /**
+     * Flux temps réel (Server-Sent Events) : instantané à la connexion, puis
+     * alertes créées/résolues et changements de statut des budgets.
+     * Le paramètre services limite le flux à certains services.
+     */
+    @GetMapping(value = "/flux", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter abonnerFlux(@RequestParam(required = false) Set<Long> services) {
+        return diffusionAlertes.abonner(services != null ? services : Set.of());
+    }
+
+    /**
+     * Métriques de l'évaluation asynchrone des alertes (file, retard, compteurs)
+     */
+    @GetMapping("/pipeline/metriques")
+    public ResponseEntity<Map<String, Object>> getMetriquesPipeline() {
+        return ResponseEntity.ok(evaluateurAlertes.getMetriques());
+    }
+
+    /**
+     * Métriques du détecteur d'anomalies de dépenses (séries suivies, compteurs)
+     */
+    @GetMapping("/anomalies/metriques")
+    public ResponseEntity<Map<String, Object>> getMetriquesAnomalies() {
+        return ResponseEntity.ok(detecteurAnomaliesDepenses.getMetriques());
+    }
+
     /**
      * Résout une alerte
      */
@@ -60,6 +102,61 @@ public class AlerteController {
         return ResponseEntity.ok(alerteService.resoudreAlerte(id));
     }
 
+    /**
+     * Résout plusieurs alertes en une seule opération.
+     * Corps : {"ids": [1, 2, 3]} ou {"serviceId": 4, "type": "DEPASSEMENT_BUDGET"} (type optionnel)
+     */
+    @PostMapping("/resoudre")
+    public ResponseEntity<Map<String, Object>> resoudreAlertes(@RequestBody Map<String, Object> request) {
+        int resolues;
+        if (request.get("ids") instanceof Collection<?> ids) {
+            resolues = alerteService.resoudreAlertes(
+                ids.stream().map(id -> Long.valueOf(id.toString())).toList());
+        } else if (request.get("serviceId") != null) {
+            Alerte.TypeAlerte type = request.get("type") != null
+                ? Alerte.TypeAlerte.valueOf((String) request.get("type"))
+                : null;
+            resolues = alerteService.resoudreAlertesService(
+                Long.valueOf(request.get("serviceId").toString()), type);
+        } else {
+            return ResponseEntity.badRequest().body(Map.of("message", "ids ou serviceId requis"));
+        }
+        return ResponseEntity.ok(Map.of("resolues", resolues));
+    }
+
+    /**
+     * Archive les alertes résolues anciennes (normalement exécuté chaque nuit)
+     */
+    @PostMapping("/archiver")
+    public ResponseEntity<RapportArchivageAlertesDTO> archiverAlertes() {
+        RapportArchivageAlertesDTO rapport = archivageAlertesService.archiver();
+        return rapport != null
+            ? ResponseEntity.ok(rapport)
+            : ResponseEntity.status(409).build();
+    }
+
+    /**
+     * Calcule les alertes prédictives de tous les services (normalement exécuté chaque nuit)
+     */
+    @PostMapping("/predictives/executer")
+    public ResponseEntity<RapportAlertesPredictivesDTO> executerAlertesPredictives() {
+        RapportAlertesPredictivesDTO rapport = alertesPredictivesService.executer();
+        return rapport != null
+            ? ResponseEntity.ok(rapport)
+            : ResponseEntity.status(409).build();
+    }
+
+    /**
+     * Rapport de la dernière exécution des alertes prédictives
+     */
+    @GetMapping("/predictives/rapport")
+    public ResponseEntity<RapportAlertesPredictivesDTO> getRapportAlertesPredictives() {
+        RapportAlertesPredictivesDTO rapport = alertesPredictivesService.getDernierRapport();
+        return rapport != null
+            ? ResponseEntity.ok(rapport)
+            : ResponseEntity.noContent().build();
+    }
+
     /**
      * Crée une alerte manuellement
      */
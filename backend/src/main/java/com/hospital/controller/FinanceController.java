@@ -1,16 +1,24 @@
 package com.hospital.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hospital.dto.BudgetServiceDTO;
+import com.hospital.dto.PageCurseur;
 import com.hospital.dto.CoutSoinDTO;
+import com.hospital.dto.CoutSoinRequest;
+import com.hospital.dto.RapportLotCoutsDTO;
 import com.hospital.model.*;
 import com.hospital.service.FinanceService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -23,6 +31,7 @@ import java.util.stream.Collectors;
 public class FinanceController {
 
     private final FinanceService financeService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Calcule le coût détaillé d'un soin
@@ -40,6 +49,15 @@ public class FinanceController {
         return ResponseEntity.ok(toDTO(coutSoin));
     }
 
+    /**
+     * Calcule les coûts d'un lot de soins en une seule requête
+     */
+    @PostMapping("/cout-soin/batch")
+    public ResponseEntity<RapportLotCoutsDTO> calculerCoutsSoinsEnLot(
+            @Valid @RequestBody List<CoutSoinRequest> requetes) {
+        return ResponseEntity.ok(financeService.calculerCoutsSoinsEnLot(requetes));
+    }
+
     /**
      * Calcule automatiquement le coût d'un soin
      */
@@ -96,6 +114,38 @@ public class FinanceController {
         return ResponseEntity.ok(historique);
     }
 
+    /**
+     * Historique des dépenses d'un service par pages (curseur = identifiant de la dernière dépense reçue)
+     */
+    @GetMapping("/historique/{serviceId}/page")
+    public ResponseEntity<PageCurseur<HistoriqueDepense>> getHistoriqueDepensesPage(
+            @PathVariable Long serviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(required = false) Long apres,
+            @RequestParam(required = false) Integer taille) {
+
+        LocalDate debutPeriode = debut != null ? debut : LocalDate.now().minusMonths(6);
+        LocalDate finPeriode = fin != null ? fin : LocalDate.now();
+        return ResponseEntity.ok(financeService.getHistoriqueDepensesPage(
+            serviceId, debutPeriode, finPeriode, apres, PageCurseur.borner(taille)));
+    }
+
+    /**
+     * Historique des dépenses d'un service en NDJSON, écrit au fil de la lecture
+     */
+    @GetMapping("/historique/{serviceId}/stream")
+    public ResponseEntity<StreamingResponseBody> streamHistoriqueDepenses(
+            @PathVariable Long serviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+
+        LocalDate debutPeriode = debut != null ? debut : LocalDate.now().minusMonths(6);
+        LocalDate finPeriode = fin != null ? fin : LocalDate.now();
+        return ReponsesNdjson.flux(objectMapper, (Consumer<HistoriqueDepense> consommateur) ->
+            financeService.exporterHistoriqueDepenses(serviceId, debutPeriode, finPeriode, consommateur));
+    }
+
     /**
      * Récupère les budgets dépassés
      */
@@ -120,13 +170,31 @@ public class FinanceController {
 
     /**
      * Recalcule tous les budgets du mois en cours
+     * (mode=masse : recalcul groupé, retourne un rapport avec la durée de chaque phase)
      */
     @PostMapping("/recalculer-budgets")
-    public ResponseEntity<String> recalculerBudgets() {
+    public ResponseEntity<?> recalculerBudgets(
+        @RequestParam(defaultValue = "standard") String mode
+    ) {
+        if ("masse".equalsIgnoreCase(mode)) {
+            return ResponseEntity.ok(financeService.recalculerBudgetsMoisCourantEnMasse());
+        }
         financeService.recalculerBudgetsMoisCourant();
         return ResponseEntity.ok("Budgets recalculés avec succès");
     }
 
+    /**
+     * Reconstruit les agrégats mensuels de dépenses depuis l'historique
+     */
+    @PostMapping("/agregats/reconstruire")
+    public ResponseEntity<Map<String, Object>> reconstruireAgregats() {
+        int lignes = financeService.reconstruireAgregatsMensuels();
+        return ResponseEntity.ok(Map.of(
+            "message", "Agrégats mensuels reconstruits avec succès",
+            "lignes", lignes
+        ));
+    }
+
     // Méthodes de conversion DTO
     private CoutSoinDTO toDTO(CoutSoin coutSoin) {
         return new CoutSoinDTO(
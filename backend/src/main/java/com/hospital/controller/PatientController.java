@@ -1,12 +1,19 @@
 package com.hospital.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.dto.PageCurseur;
+import com.hospital.dto.PatientSuggestionDTO;
 import com.hospital.model.Patient;
+import com.hospital.service.IndexSaisiePatients;
 import com.hospital.service.PatientService;
+import com.hospital.service.SuiviSaisieClients;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.function.BooleanSupplier;
 
 @RestController
 @RequestMapping("/api/patients")
@@ -15,12 +22,32 @@ import java.util.List;
 public class PatientController {
 
     private final PatientService patientService;
+    private final SuiviSaisieClients suiviSaisieClients;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<List<Patient>> getAllPatients() {
         return ResponseEntity.ok(patientService.getAllPatients());
     }
 
+    /**
+     * Patients par pages (curseur = identifiant du dernier patient reçu)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageCurseur<Patient>> getPatientsPage(
+            @RequestParam(required = false) Long apres,
+            @RequestParam(required = false) Integer taille) {
+        return ResponseEntity.ok(patientService.getPatientsPage(apres, PageCurseur.borner(taille)));
+    }
+
+    /**
+     * Tous les patients en NDJSON, écrits au fil de la lecture
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamPatients() {
+        return ReponsesNdjson.flux(objectMapper, patientService::exporterPatients);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Patient> getPatientById(@PathVariable Long id) {
         return patientService.getPatientById(id)
@@ -45,7 +72,33 @@ public class PatientController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Patient>> searchPatients(@RequestParam String q) {
-        return ResponseEntity.ok(patientService.searchPatients(q));
+    public ResponseEntity<List<Patient>> searchPatients(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "100") int limite) {
+        return ResponseEntity.ok(patientService.searchPatients(q, Math.max(1, Math.min(limite, 1000))));
+    }
+
+    /**
+     * Suggestions de saisie semi-automatique (au plus 50). Une requête remplacée
+     * par une saisie plus récente du même client (en-tête X-Client-Id, numéro
+     * optionnel seq) est abandonnée et reçoit 204.
+     */
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<PatientSuggestionDTO>> suggererPatients(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limite,
+            @RequestParam(required = false) Long seq,
+            @RequestHeader(value = "X-Client-Id", required = false) String clientId) {
+        BooleanSupplier annulee = suiviSaisieClients.demarrer(clientId, seq);
+        try {
+            List<PatientSuggestionDTO> suggestions =
+                patientService.suggererPatients(q, Math.max(1, Math.min(limite, 50)), annulee);
+            if (annulee.getAsBoolean()) {
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.ok(suggestions);
+        } catch (IndexSaisiePatients.RechercheAnnuleeException e) {
+            return ResponseEntity.noContent().build();
+        }
     }
 }
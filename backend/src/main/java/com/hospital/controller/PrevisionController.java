@@ -7,6 +7,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -76,13 +77,7 @@ public class PrevisionController {
     @GetMapping("/{serviceId}/tendance-actuelle")
     public ResponseEntity<Map<String, Object>> getTendanceActuelle(@PathVariable Long serviceId) {
         PrevisionService.TendanceResult tendance = previsionService.calculerTendance(serviceId);
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("direction", tendance.direction);
-        result.put("variationPourcentage", tendance.variationPourcentage);
-        result.put("description", tendance.description);
-        
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(toMap(tendance));
     }
 
     /**
@@ -100,17 +95,63 @@ public class PrevisionController {
         return ResponseEntity.ok(dto);
     }
 
+    /**
+     * Toutes les méthodes de prévision en une seule réponse
+     * (la série mensuelle du service n'est chargée qu'une fois)
+     */
+    @GetMapping("/{serviceId}/complete")
+    public ResponseEntity<Map<String, Object>> prevoirToutesMethodes(
+            @PathVariable Long serviceId,
+            @RequestParam(defaultValue = "3") int nombreMois,
+            @RequestParam(defaultValue = "3") int periodeMoyenne) {
+
+        PrevisionService.PrevisionsCompletes previsions =
+            previsionService.prevoirToutesMethodes(serviceId, nombreMois, periodeMoyenne);
+
+        return ResponseEntity.ok(toMap(serviceId, previsions));
+    }
+
+    /**
+     * Prévisions de plusieurs services en une seule requête.
+     * {@code serviceIds} : liste d'identifiants séparés par des virgules, ou "all"
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<Map<String, Object>> prevoirPlusieursServices(
+            @RequestParam(defaultValue = "all") String serviceIds,
+            @RequestParam(defaultValue = "3") int nombreMois,
+            @RequestParam(defaultValue = "3") int periodeMoyenne) {
+
+        List<Long> ids = "all".equalsIgnoreCase(serviceIds.trim())
+            ? null
+            : Arrays.stream(serviceIds.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<Long, PrevisionService.PrevisionsCompletes> previsions =
+            previsionService.prevoirPourServices(ids, nombreMois, periodeMoyenne);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("nombreServices", previsions.size());
+        result.put("services", previsions.entrySet().stream()
+            .map(e -> toMap(e.getKey(), e.getValue()))
+            .collect(Collectors.toList()));
+
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Comparaison prévu vs réel
      */
     @GetMapping("/{serviceId}/comparaison")
     public ResponseEntity<Map<String, Object>> comparerPrevuReel(@PathVariable Long serviceId) {
-        // Prévisions
-        List<PrevisionService.PrevisionResult> previsions = 
-            previsionService.prevoirDepensesMoyenneMobile(serviceId, 3, 3);
-        
-        // Tendance
-        PrevisionService.TendanceResult tendance = previsionService.calculerTendance(serviceId);
+        // Prévisions et tendance calculées sur un seul chargement de la série
+        PrevisionService.PrevisionsCompletes completes =
+            previsionService.prevoirToutesMethodes(serviceId, 3, 3);
+        List<PrevisionService.PrevisionResult> previsions = completes.moyenneMobile;
+        PrevisionService.TendanceResult tendance = completes.tendanceActuelle;
         
         Map<String, Object> result = new HashMap<>();
         result.put("previsions", previsions.stream()
@@ -122,15 +163,28 @@ public class PrevisionController {
                 return point;
             })
             .collect(Collectors.toList()));
-        result.put("tendance", Map.of(
-            "direction", tendance.direction,
-            "variationPourcentage", tendance.variationPourcentage,
-            "description", tendance.description
-        ));
+        result.put("tendance", toMap(tendance));
         
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Statistiques du cache des prévisions (succès, échecs, évictions)
+     */
+    @GetMapping("/cache/statistiques")
+    public ResponseEntity<Map<String, Object>> getStatistiquesCache() {
+        return ResponseEntity.ok(previsionService.getStatistiquesCache());
+    }
+
+    /**
+     * Vide le cache des prévisions
+     */
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> viderCache() {
+        previsionService.viderCache();
+        return ResponseEntity.noContent().build();
+    }
+
     private PrevisionDTO toDTO(Long serviceId, List<PrevisionService.PrevisionResult> previsions) {
         List<PointPrevisionDTO> points = previsions.stream()
             .map(p -> new PointPrevisionDTO(p.date, p.montant, null))
@@ -141,5 +195,22 @@ public class PrevisionController {
         
         return new PrevisionDTO(serviceId, points, methode, confiance);
     }
-}
 
+    private Map<String, Object> toMap(Long serviceId, PrevisionService.PrevisionsCompletes previsions) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("serviceId", serviceId);
+        result.put("moyenneMobile", toDTO(serviceId, previsions.moyenneMobile));
+        result.put("moyenneMobilePonderee", toDTO(serviceId, previsions.moyenneMobilePonderee));
+        result.put("tendance", toDTO(serviceId, previsions.tendance));
+        result.put("tendanceActuelle", toMap(previsions.tendanceActuelle));
+        return result;
+    }
+
+    private Map<String, Object> toMap(PrevisionService.TendanceResult tendance) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("direction", tendance.direction);
+        result.put("variationPourcentage", tendance.variationPourcentage);
+        result.put("description", tendance.description);
+        return result;
+    }
+}
@@ -1,13 +1,28 @@
 package com.hospital.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.dto.AgendaJourDTO;
+import com.hospital.dto.CompteursRendezVousDTO;
+import com.hospital.dto.CreneauLibreDTO;
+import com.hospital.dto.PageCurseur;
+import com.hospital.dto.RapportReservationLotDTO;
+import com.hospital.dto.RendezVousResumeDTO;
+import com.hospital.dto.SerieRendezVousRequest;
 import com.hospital.model.RendezVous;
+import com.hospital.service.PlanningRendezVous;
 import com.hospital.service.RendezVousService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 
@@ -17,13 +32,35 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class RendezVousController {
 
+    private static final int JOURS_RECHERCHE_MAX = 31;
+    private static final int CRENEAUX_MAX = 500;
+
     private final RendezVousService rendezVousService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<List<RendezVous>> getAllRendezVous() {
         return ResponseEntity.ok(rendezVousService.getAllRendezVous());
     }
 
+    /**
+     * Rendez-vous par pages (curseur = identifiant du dernier rendez-vous reçu)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageCurseur<RendezVous>> getRendezVousPage(
+            @RequestParam(required = false) Long apres,
+            @RequestParam(required = false) Integer taille) {
+        return ResponseEntity.ok(rendezVousService.getRendezVousPage(apres, PageCurseur.borner(taille)));
+    }
+
+    /**
+     * Tous les rendez-vous en NDJSON, écrits au fil de la lecture
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamRendezVous() {
+        return ReponsesNdjson.flux(objectMapper, rendezVousService::exporterRendezVous);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<RendezVous> getRendezVousById(@PathVariable Long id) {
         return rendezVousService.getRendezVousById(id)
@@ -32,34 +69,162 @@ public class RendezVousController {
     }
 
     @GetMapping("/patient/{patientId}")
-    public ResponseEntity<List<RendezVous>> getRendezVousByPatient(@PathVariable Long patientId) {
+    public ResponseEntity<List<RendezVousResumeDTO>> getRendezVousByPatient(@PathVariable Long patientId) {
         return ResponseEntity.ok(rendezVousService.getRendezVousByPatientId(patientId));
     }
 
+    /**
+     * Agenda d'un jour : rendez-vous triés par heure et regroupés par statut (servi depuis le cache)
+     */
+    @GetMapping("/agenda/{date}")
+    public ResponseEntity<AgendaJourDTO> getAgenda(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(rendezVousService.getAgenda(date));
+    }
+
+    /**
+     * Statistiques du cache de l'agenda
+     */
+    @GetMapping("/agenda/cache/stats")
+    public ResponseEntity<Map<String, Object>> getStatistiquesAgenda() {
+        return ResponseEntity.ok(rendezVousService.getStatistiquesAgenda());
+    }
+
+    /**
+     * Nombre de rendez-vous par statut, du jour demandé (aujourd'hui par défaut) et au total
+     */
+    @GetMapping("/compteurs")
+    public ResponseEntity<CompteursRendezVousDTO> getCompteurs(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(rendezVousService.getCompteurs(date != null ? date : LocalDate.now()));
+    }
+
     @GetMapping("/date/{date}")
-    public ResponseEntity<List<RendezVous>> getRendezVousByDate(
+    public ResponseEntity<List<RendezVousResumeDTO>> getRendezVousByDate(
             @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         return ResponseEntity.ok(rendezVousService.getRendezVousByDate(date));
     }
 
+    /**
+     * Créneaux libres du planning, du jour {@code du} au jour {@code au} (inclus),
+     * hors rendez-vous du patient s'il est donné
+     */
+    @GetMapping("/creneaux-libres")
+    public ResponseEntity<?> getCreneauxLibres(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate du,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate au,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime fin,
+            @RequestParam(required = false) Integer duree,
+            @RequestParam(defaultValue = "50") int limite,
+            @RequestParam(required = false) Long patientId) {
+        LocalDate dernierJour = au != null ? au : du;
+        if (dernierJour.isBefore(du) || ChronoUnit.DAYS.between(du, dernierJour) >= JOURS_RECHERCHE_MAX) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "message", "La période doit couvrir de 1 à " + JOURS_RECHERCHE_MAX + " jours"));
+        }
+        try {
+            List<CreneauLibreDTO> creneaux = rendezVousService.trouverCreneauxLibres(
+                du, dernierJour, debut, fin, duree, Math.max(1, Math.min(limite, CRENEAUX_MAX)), patientId);
+            return ResponseEntity.ok(creneaux);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @PostMapping
-    public ResponseEntity<RendezVous> createRendezVous(@RequestBody RendezVous rendezVous) {
-        return ResponseEntity.ok(rendezVousService.createRendezVous(rendezVous));
+    public ResponseEntity<?> createRendezVous(@RequestBody RendezVous rendezVous) {
+        try {
+            return ResponseEntity.ok(rendezVousService.createRendezVous(rendezVous));
+        } catch (PlanningRendezVous.ConflitRendezVousException e) {
+            return conflit(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Réserve plusieurs rendez-vous en une requête (les demandes en conflit sont refusées une à une)
+     */
+    @PostMapping("/lot")
+    public ResponseEntity<RapportReservationLotDTO> reserverLot(@RequestBody List<RendezVous> rendezVous) {
+        return ResponseEntity.ok(rendezVousService.reserverLot(rendezVous));
+    }
+
+    /**
+     * Crée une série de rendez-vous récurrents (409 si une occurrence est en conflit, hors mode partiel)
+     */
+    @PostMapping("/series")
+    public ResponseEntity<?> creerSerie(@Valid @RequestBody SerieRendezVousRequest demande) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(rendezVousService.creerSerie(demande));
+        } catch (PlanningRendezVous.ConflitRendezVousException e) {
+            return conflit(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/series/{serieId}")
+    public ResponseEntity<List<RendezVousResumeDTO>> getSerie(@PathVariable String serieId) {
+        List<RendezVousResumeDTO> occurrences = rendezVousService.getSerie(serieId);
+        return occurrences.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(occurrences);
+    }
+
+    /**
+     * Modifie le motif et/ou les notes des occurrences à venir d'une série,
+     * à partir d'une date (maintenant par défaut)
+     */
+    @PatchMapping("/series/{serieId}")
+    public ResponseEntity<Map<String, Object>> modifierSerie(
+            @PathVariable String serieId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime depuis,
+            @RequestBody Map<String, String> body) {
+        int modifies = rendezVousService.modifierSerie(serieId, depuis != null ? depuis : LocalDateTime.now(),
+                                                       body.get("motif"), body.get("notes"));
+        return ResponseEntity.ok(Map.of("serieId", serieId, "modifies", modifies));
+    }
+
+    /**
+     * Annule les occurrences à venir d'une série, à partir d'une date (maintenant par défaut)
+     */
+    @PostMapping("/series/{serieId}/annuler")
+    public ResponseEntity<Map<String, Object>> annulerSerie(
+            @PathVariable String serieId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime depuis) {
+        int annules = rendezVousService.annulerSerie(serieId, depuis != null ? depuis : LocalDateTime.now());
+        return ResponseEntity.ok(Map.of("serieId", serieId, "annules", annules));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<RendezVous> updateRendezVous(
+    public ResponseEntity<?> updateRendezVous(
             @PathVariable Long id,
             @RequestBody RendezVous rendezVous) {
-        return ResponseEntity.ok(rendezVousService.updateRendezVous(id, rendezVous));
+        try {
+            return ResponseEntity.ok(rendezVousService.updateRendezVous(id, rendezVous));
+        } catch (PlanningRendezVous.ConflitRendezVousException e) {
+            return conflit(e);
+        } catch (RendezVousService.TransitionStatutException e) {
+            return transitionInvalide(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     @PatchMapping("/{id}/statut")
-    public ResponseEntity<RendezVous> updateStatut(
+    public ResponseEntity<?> updateStatut(
             @PathVariable Long id,
             @RequestBody Map<String, String> body) {
-        String statut = body.get("statut");
-        return ResponseEntity.ok(rendezVousService.updateStatut(id, statut));
+        try {
+            RendezVous.StatutRendezVous statut = RendezVous.StatutRendezVous.depuisLibelle(body.get("statut"));
+            return ResponseEntity.ok(rendezVousService.updateStatut(id, statut));
+        } catch (PlanningRendezVous.ConflitRendezVousException e) {
+            return conflit(e);
+        } catch (RendezVousService.TransitionStatutException e) {
+            return transitionInvalide(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -67,4 +232,24 @@ public class RendezVousController {
         rendezVousService.deleteRendezVous(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static ResponseEntity<Map<String, Object>> conflit(PlanningRendezVous.ConflitRendezVousException e) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(Map.of(
+                    "error", "CONFLICT",
+                    "message", e.getMessage(),
+                    "status", 409
+                ));
+    }
+
+    private static ResponseEntity<Map<String, Object>> transitionInvalide(RendezVousService.TransitionStatutException e) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(Map.of(
+                    "error", "TRANSITION_INVALIDE",
+                    "message", e.getMessage(),
+                    "status", 409
+                ));
+    }
 }
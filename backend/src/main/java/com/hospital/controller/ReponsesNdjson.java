@@ -0,0 +1,50 @@
+package com.hospital.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Réponses NDJSON (un objet JSON par ligne) écrites au fil de l'eau.
+ * La source est appelée dans le thread d'écriture de la réponse : elle doit
+ * ouvrir sa propre transaction (méthode de service @Transactional).
+ * La réponse se termine par une redistribution ASYNC de la requête, que
+ * SecurityConfig autorise sans nouveau contrôle : le filtre JWT ne s'y
+ * exécute pas, et la requête d'origine a déjà été authentifiée.
+ */
+final class ReponsesNdjson {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private ReponsesNdjson() {
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> flux(ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+        ObjectWriter writer = objectMapper.writer();
+        StreamingResponseBody corps = sortie -> {
+            OutputStream tampon = new BufferedOutputStream(sortie, 64 * 1024);
+            try {
+                source.accept(element -> {
+                    try {
+                        tampon.write(writer.writeValueAsBytes(element));
+                        tampon.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            tampon.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(corps);
+    }
+}
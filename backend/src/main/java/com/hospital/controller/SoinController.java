@@ -1,10 +1,13 @@
 package com.hospital.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.dto.PageCurseur;
 import com.hospital.model.Soin;
 import com.hospital.service.SoinService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -15,12 +18,31 @@ import java.util.List;
 public class SoinController {
 
     private final SoinService soinService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<List<Soin>> getAllSoins() {
         return ResponseEntity.ok(soinService.getAllSoins());
     }
 
+    /**
+     * Soins par pages (curseur = identifiant du dernier soin reçu)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageCurseur<Soin>> getSoinsPage(
+            @RequestParam(required = false) Long apres,
+            @RequestParam(required = false) Integer taille) {
+        return ResponseEntity.ok(soinService.getSoinsPage(apres, PageCurseur.borner(taille)));
+    }
+
+    /**
+     * Tous les soins en NDJSON, écrits au fil de la lecture
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamSoins() {
+        return ReponsesNdjson.flux(objectMapper, soinService::exporterSoins);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Soin> getSoinById(@PathVariable Long id) {
         return soinService.getSoinById(id)
@@ -0,0 +1,22 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO de l'agenda d'un jour : rendez-vous triés par heure, et regroupés par statut
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgendaJourDTO {
+    private LocalDate date;
+    private Integer total;
+    private List<RendezVousResumeDTO> rendezVous;
+    private Map<String, List<RendezVousResumeDTO>> parStatut;
+}
@@ -0,0 +1,23 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * DTO des compteurs de rendez-vous par statut (libellé -> nombre),
+ * pour un jour et au total
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompteursRendezVousDTO {
+    private LocalDate date;
+    private Long totalJour;
+    private Map<String, Long> jour;
+    private Long total;
+    private Map<String, Long> parStatut;
+}
@@ -0,0 +1,21 @@
+package com.hospital.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+@Data
+public class CoutSoinRequest {
+
+    @NotNull(message = "L'identifiant du soin est obligatoire")
+    private Long soinId;
+
+    @PositiveOrZero(message = "Le coût du personnel doit être positif")
+    private Double coutPersonnel;
+
+    @PositiveOrZero(message = "Le coût du matériel doit être positif")
+    private Double coutMateriel;
+
+    @PositiveOrZero(message = "Le coût des consommables doit être positif")
+    private Double coutConsommables;
+}
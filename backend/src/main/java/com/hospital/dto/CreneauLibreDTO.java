@@ -0,0 +1,18 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO d'un créneau libre du planning des rendez-vous
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreneauLibreDTO {
+    private LocalDateTime debut;
+    private LocalDateTime fin;
+}
@@ -0,0 +1,48 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page d'une pagination par curseur (keyset).
+ * La page suivante s'obtient en repassant {@code curseurSuivant} comme
+ * paramètre {@code apres} ; il vaut null sur la dernière page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageCurseur<T> {
+
+    public static final int TAILLE_DEFAUT = 100;
+    public static final int TAILLE_MAX = 1000;
+
+    private List<T> elements;
+    private Integer taille;
+    private Long curseurSuivant;
+
+    /**
+     * Construit une page à partir de {@code taille + 1} lignes au plus :
+     * la ligne en trop indique seulement qu'une page suivante existe
+     */
+    public static <T> PageCurseur<T> depuis(List<T> lignes, int taille, Function<T, Long> cle) {
+        if (lignes.size() <= taille) {
+            return new PageCurseur<>(lignes, lignes.size(), null);
+        }
+        List<T> elements = lignes.subList(0, taille);
+        return new PageCurseur<>(elements, taille, cle.apply(elements.get(taille - 1)));
+    }
+
+    /**
+     * Ramène la taille demandée entre 1 et TAILLE_MAX
+     */
+    public static int borner(Integer taille) {
+        if (taille == null) {
+            return TAILLE_DEFAUT;
+        }
+        return Math.max(1, Math.min(taille, TAILLE_MAX));
+    }
+}
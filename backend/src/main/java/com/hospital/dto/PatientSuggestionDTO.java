@@ -0,0 +1,27 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Suggestion de patient pour la saisie semi-automatique.
+ * Le NSS est masqué : seuls ses 4 derniers chiffres sont visibles.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSuggestionDTO {
+    private Long id;
+    private String nom;
+    private String prenom;
+    private String nssMasque;
+
+    public static String masquerNss(String nss) {
+        if (nss == null || nss.isEmpty()) {
+            return null;
+        }
+        int visibles = Math.min(4, nss.length());
+        return "*".repeat(nss.length() - visibles) + nss.substring(nss.length() - visibles);
+    }
+}
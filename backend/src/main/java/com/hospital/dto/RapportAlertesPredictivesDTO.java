@@ -0,0 +1,25 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO du rapport d'une exécution des alertes prédictives
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RapportAlertesPredictivesDTO {
+    private LocalDateTime dateExecution;
+    private Integer servicesAnalyses;
+    private Integer depassementsPrevus;
+    private Integer tendancesAlarmantes;
+    private Integer alertesCreees;
+    private Integer alertesResolues;
+    private Long dureeChargementMs;
+    private Long dureeCalculMs;
+    private Long dureeMs;
+}
@@ -0,0 +1,20 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO du rapport d'archivage des alertes résolues
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RapportArchivageAlertesDTO {
+    private LocalDateTime resoluesAvant;
+    private Integer alertesArchivees;
+    private Integer lots;
+    private Long dureeMs;
+}
@@ -0,0 +1,23 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Rapport d'une ingestion groupée de coûts de soins
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RapportLotCoutsDTO {
+    private Integer nombreSoins;
+    private Integer coutsCrees;
+    private Integer coutsMisAJour;
+    private Integer depensesInserees;
+    private Integer budgetsMisAJour;
+    private List<Long> soinsIntrouvables;
+    private Long dureeMs;
+}
@@ -0,0 +1,26 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO du rapport de recalcul en masse des budgets (volumes et durées par phase)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RapportRecalculBudgetsDTO {
+    private LocalDate periode;
+    private Integer nombreServices;
+    private Integer budgetsMisAJour;
+    private Integer budgetsCrees;
+    private Integer alertesEvaluees;
+    private Long dureeAgregationMs;
+    private Long dureeChargementMs;
+    private Long dureeEcritureMs;
+    private Long dureeAlertesMs;
+    private Long dureeTotaleMs;
+}
@@ -0,0 +1,22 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO du rapport d'une réservation de rendez-vous en lot
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RapportReservationLotDTO {
+    private Integer demandes;
+    private List<Long> crees;
+    // Indice de la demande dans le lot -> motif du refus
+    private Map<Integer, String> refus;
+    private Long dureeMs;
+}
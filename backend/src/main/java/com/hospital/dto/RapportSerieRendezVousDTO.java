@@ -0,0 +1,24 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO du rapport de création d'une série de rendez-vous récurrents
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RapportSerieRendezVousDTO {
+    private String serieId;
+    private Integer occurrences;
+    private List<Long> crees;
+    // Occurrence non créée -> motif du conflit
+    private Map<LocalDateTime, String> conflits;
+    private Long dureeMs;
+}
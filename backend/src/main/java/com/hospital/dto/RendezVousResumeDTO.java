@@ -0,0 +1,29 @@
+package com.hospital.dto;
+
+import com.hospital.model.RendezVous;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO d'un rendez-vous pour l'agenda et la fiche patient
+ * (projection : le patient est réduit à son identifiant et à son nom)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RendezVousResumeDTO {
+    private Long id;
+    private LocalDateTime dateHeure;
+    private Integer dureeMinutes;
+    private String motif;
+    private RendezVous.StatutRendezVous statut;
+    private String notes;
+    private Long patientId;
+    // Prénom et nom du patient
+    private String patientNom;
+    // Série récurrente (null pour un rendez-vous isolé)
+    private String serieId;
+}
@@ -0,0 +1,59 @@
+package com.hospital.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Demande de série de rendez-vous récurrents (sur le modèle d'une règle RRULE :
+ * FREQ, INTERVAL, BYDAY, COUNT, UNTIL). Le nombre d'occurrences ou la date de
+ * fin doit être renseigné ; avec les deux, la série s'arrête à la première limite.
+ */
+@Data
+public class SerieRendezVousRequest {
+
+    @NotNull(message = "L'identifiant du patient est obligatoire")
+    private Long patientId;
+
+    // Première occurrence (date et heure de tous les rendez-vous de la série)
+    @NotNull(message = "La date de la première occurrence est obligatoire")
+    private LocalDateTime debut;
+
+    @NotNull(message = "La fréquence est obligatoire")
+    private Frequence frequence;
+
+    // Toutes les N jours, semaines ou mois
+    @Positive(message = "L'intervalle doit être positif")
+    private Integer intervalle = 1;
+
+    // Jours des occurrences d'une série hebdomadaire (jour de la première occurrence par défaut)
+    private List<DayOfWeek> joursSemaine;
+
+    @Positive(message = "Le nombre d'occurrences doit être positif")
+    private Integer nombre;
+
+    // Dernier jour possible d'une occurrence (inclus)
+    private LocalDate jusquAu;
+
+    private Integer dureeMinutes;
+
+    @NotBlank(message = "Le motif est obligatoire")
+    private String motif;
+
+    private String notes;
+
+    // Crée les occurrences libres et ignore celles en conflit (sinon la série est refusée)
+    private boolean partielle;
+
+    public enum Frequence {
+        QUOTIDIENNE,
+        HEBDOMADAIRE,
+        MENSUELLE
+    }
+}
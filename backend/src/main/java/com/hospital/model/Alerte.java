@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "alerte", indexes = {
     @Index(name = "idx_service_resolue", columnList = "service_id,resolue"),
-    @Index(name = "idx_resolue", columnList = "resolue")
+    @Index(name = "idx_resolue", columnList = "resolue"),
+    @Index(name = "idx_resolue_date_resolution", columnList = "resolue,date_resolution")
 })
 @Data
 @NoArgsConstructor
@@ -21,7 +22,8 @@ import java.time.LocalDateTime;
 public class Alerte {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alerte_seq")
+    @SequenceGenerator(name = "alerte_seq", sequenceName = "alerte_seq", allocationSize = 50)
     private Long id;
 
     /**
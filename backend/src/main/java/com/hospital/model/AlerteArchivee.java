@@ -0,0 +1,53 @@
+package com.hospital.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Alerte résolue déplacée hors de la table des alertes par l'archivage.
+ * Conserve l'identifiant et les colonnes de l'alerte d'origine.
+ */
+@Entity
+@Table(name = "alerte_archive", indexes = {
+    @Index(name = "idx_archive_service_date", columnList = "service_id,date_creation")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlerteArchivee {
+
+    @Id
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Alerte.TypeAlerte type;
+
+    @Column(name = "service_id")
+    private Long serviceId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Alerte.NiveauAlerte niveau;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation;
+
+    @Column(name = "date_resolution")
+    private LocalDateTime dateResolution;
+
+    @Column(name = "donnees_supplementaires", columnDefinition = "TEXT")
+    private String donneesSupplementaires;
+
+    /**
+     * Date du déplacement vers l'archive
+     */
+    @Column(name = "date_archivage", nullable = false)
+    private LocalDateTime dateArchivage;
+}
@@ -20,7 +20,8 @@ import java.time.LocalDate;
 public class BudgetService {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "budget_service_seq")
+    @SequenceGenerator(name = "budget_service_seq", sequenceName = "budget_service_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "service_id", nullable = false)
@@ -73,14 +74,21 @@ public class BudgetService {
     protected void onCreate() {
         createdAt = java.time.LocalDateTime.now();
         updatedAt = java.time.LocalDateTime.now();
-        calculerEcart();
-        calculerTauxUtilisation();
-        determinerStatut();
+        recalculer();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = java.time.LocalDateTime.now();
+        recalculer();
+    }
+
+    /**
+     * Recalcule l'écart, le taux d'utilisation et le statut.
+     * Appelé automatiquement à la sauvegarde, et explicitement par les
+     * traitements qui écrivent les budgets sans passer par JPA.
+     */
+    public void recalculer() {
         calculerEcart();
         calculerTauxUtilisation();
         determinerStatut();
@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class CoutSoin {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cout_soin_seq")
+    @SequenceGenerator(name = "cout_soin_seq", sequenceName = "cout_soin_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "soin_id", nullable = false)
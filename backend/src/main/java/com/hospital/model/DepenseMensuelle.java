@@ -0,0 +1,64 @@
+package com.hospital.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Agrégat mensuel des dépenses par service et par type de dépense.
+ * Maintenu à chaque écriture dans l'historique des dépenses, il évite de
+ * relire et regrouper le détail des dépenses pour les prévisions.
+ */
+@Entity
+@Table(name = "depense_mensuelle", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_depense_mensuelle", columnNames = {"service_id", "mois", "type_depense"})
+}, indexes = {
+    @Index(name = "idx_depense_mensuelle_service_mois", columnList = "service_id,mois")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepenseMensuelle {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "depense_mensuelle_seq")
+    @SequenceGenerator(name = "depense_mensuelle_seq", sequenceName = "depense_mensuelle_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "service_id", nullable = false)
+    private Long serviceId;
+
+    /**
+     * Mois de l'agrégat (premier jour du mois)
+     */
+    @Column(nullable = false)
+    private LocalDate mois;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type_depense", nullable = false)
+    private HistoriqueDepense.TypeDepense typeDepense;
+
+    /**
+     * Somme des montants du mois pour ce service et ce type
+     */
+    @Column(nullable = false)
+    private Double montant = 0.0;
+
+    /**
+     * Nombre de lignes d'historique agrégées
+     */
+    @Column(name = "nombre_depenses", nullable = false)
+    private Long nombreDepenses = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -21,7 +21,8 @@ import java.time.LocalDate;
 public class HistoriqueDepense {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "historique_depense_seq")
+    @SequenceGenerator(name = "historique_depense_seq", sequenceName = "historique_depense_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "service_id", nullable = false)
@@ -1,36 +1,166 @@
 package com.hospital.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonValue;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "rendez_vous")
+@Table(name = "rendez_vous", indexes = {
+    @Index(name = "idx_rendez_vous_date_heure", columnList = "date_heure"),
+    @Index(name = "idx_rendez_vous_statut_date_heure", columnList = "statut, date_heure"),
+    @Index(name = "idx_rendez_vous_serie_date_heure", columnList = "serie_id, date_heure")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class RendezVous {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rendez_vous_seq")
+    @SequenceGenerator(name = "rendez_vous_seq", sequenceName = "rendez_vous_seq", allocationSize = 50)
     private Long id;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    /**
+     * Chargé à la demande : les requêtes qui en ont besoin le chargent par jointure
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id")
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Patient patient;
     
     @Column(nullable = false)
     private LocalDateTime dateHeure;
     
+    /**
+     * Durée en minutes (durée par défaut du planning si absente)
+     */
+    private Integer dureeMinutes;
+
     @Column(nullable = false)
     private String motif;
     
+    /**
+     * Statut, stocké sous forme de code (smallint) et exposé en JSON par son libellé
+     */
+    @Convert(converter = StatutRendezVous.Convertisseur.class)
     @Column(nullable = false)
-    private String statut = "En attente";
+    private StatutRendezVous statut = StatutRendezVous.EN_ATTENTE;
     
     @Column(columnDefinition = "TEXT")
     private String notes;
+
+    /**
+     * Identifiant de la série récurrente du rendez-vous (null pour un rendez-vous isolé)
+     */
+    @Column(name = "serie_id", length = 36)
+    private String serieId;
+
+    /**
+     * Cycle de vie d'un rendez-vous.
+     * Les codes sont ceux stockés en base : ils ne doivent pas être modifiés.
+     */
+    public enum StatutRendezVous {
+        EN_ATTENTE(0, "En attente"),
+        CONFIRME(1, "Confirmé"),
+        EN_COURS(2, "En cours"),
+        TERMINE(3, "Terminé"),
+        ANNULE(4, "Annulé");
+
+        private final short code;
+        private final String libelle;
+
+        StatutRendezVous(int code, String libelle) {
+            this.code = (short) code;
+            this.libelle = libelle;
+        }
+
+        public short getCode() {
+            return code;
+        }
+
+        @JsonValue
+        public String getLibelle() {
+            return libelle;
+        }
+
+        /**
+         * Statut correspondant à un libellé ("En attente") ou à un nom ("EN_ATTENTE")
+         *
+         * @throws IllegalArgumentException si le statut est inconnu
+         */
+        @JsonCreator
+        public static StatutRendezVous depuisLibelle(String valeur) {
+            if (valeur != null) {
+                String recherche = valeur.trim();
+                for (StatutRendezVous statut : values()) {
+                    if (statut.libelle.equalsIgnoreCase(recherche) || statut.name().equalsIgnoreCase(recherche)) {
+                        return statut;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("Statut de rendez-vous inconnu: " + valeur);
+        }
+
+        public static StatutRendezVous depuisCode(short code) {
+            for (StatutRendezVous statut : values()) {
+                if (statut.code == code) {
+                    return statut;
+                }
+            }
+            throw new IllegalArgumentException("Code de statut de rendez-vous inconnu: " + code);
+        }
+
+        /**
+         * Indique si un rendez-vous de ce statut occupe son créneau dans le planning
+         */
+        public boolean occupeCreneau() {
+            return this != ANNULE;
+        }
+
+        /**
+         * Transitions autorisées (rester dans le même statut est toujours permis) :
+         * En attente -> Confirmé, En cours, Annulé ;
+         * Confirmé -> En attente, En cours, Terminé, Annulé ;
+         * En cours -> Terminé ; Annulé -> En attente ; Terminé est définitif
+         */
+        public boolean peutPasserA(StatutRendezVous cible) {
+            if (cible == this) {
+                return true;
+            }
+            return switch (this) {
+                case EN_ATTENTE -> cible == CONFIRME || cible == EN_COURS || cible == ANNULE;
+                case CONFIRME -> true;
+                case EN_COURS -> cible == TERMINE;
+                case TERMINE -> false;
+                case ANNULE -> cible == EN_ATTENTE;
+            };
+        }
+
+        /**
+         * Stockage du statut par son code
+         */
+        @Converter
+        public static class Convertisseur implements AttributeConverter<StatutRendezVous, Short> {
+
+            @Override
+            public Short convertToDatabaseColumn(StatutRendezVous statut) {
+                return statut != null ? statut.code : null;
+            }
+
+            @Override
+            public StatutRendezVous convertToEntityAttribute(Short code) {
+                return code != null ? depuisCode(code) : null;
+            }
+        }
+    }
 }
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 public class Soin {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "soin_seq")
+    @SequenceGenerator(name = "soin_seq", sequenceName = "soin_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "patient_id")
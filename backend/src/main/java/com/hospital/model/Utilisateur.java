@@ -25,7 +25,7 @@ public class Utilisateur {
     @Column(nullable = false, unique = true)
     private String email;
     
-    @Column(name = "mot_de_passe", nullable = false)
+    @Column(name = "mot_de_passe")
     private String motDePasse; // Stocké haché avec BCrypt
     
     @Column(length = 100)
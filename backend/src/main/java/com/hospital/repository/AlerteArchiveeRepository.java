@@ -0,0 +1,35 @@
+package com.hospital.repository;
+
+import com.hospital.model.AlerteArchivee;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AlerteArchiveeRepository extends JpaRepository<AlerteArchivee, Long> {
+
+    /**
+     * Trouve les alertes archivées d'un service
+     */
+    List<AlerteArchivee> findByServiceIdOrderByDateCreationDesc(Long serviceId);
+
+    /**
+     * Copie des alertes vers l'archive, en une seule instruction
+     */
+    @Modifying
+    @Query(value = "INSERT INTO alerte_archive (id, type, service_id, message, niveau, date_creation, " +
+                   "date_resolution, donnees_supplementaires, date_archivage) " +
+                   "SELECT id, type, service_id, message, niveau, date_creation, date_resolution, " +
+                   "donnees_supplementaires, :maintenant FROM alerte WHERE id IN :ids",
+           nativeQuery = true)
+    int copierDepuisAlertes(
+        @Param("ids") Collection<Long> ids,
+        @Param("maintenant") LocalDateTime maintenant
+    );
+}
@@ -1,12 +1,15 @@
 package com.hospital.repository;
 
 import com.hospital.model.Alerte;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -54,5 +57,44 @@ public interface AlerteRepository extends JpaRepository<Alerte, Long> {
      * Trouve les alertes créées après une date
      */
     List<Alerte> findByDateCreationAfterOrderByDateCreationDesc(LocalDateTime date);
-}
 
+    /**
+     * Résout des alertes en une seule instruction
+     *
+     * @return Nombre d'alertes effectivement résolues (celles déjà résolues sont ignorées)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Alerte a SET a.resolue = true, a.dateResolution = :maintenant " +
+           "WHERE a.id IN :ids AND a.resolue = false")
+    int resoudreParIds(
+        @Param("ids") Collection<Long> ids,
+        @Param("maintenant") LocalDateTime maintenant
+    );
+
+    /**
+     * Identifiants des alertes non résolues d'un service, éventuellement d'un seul type
+     */
+    @Query("SELECT a.id FROM Alerte a WHERE a.resolue = false AND a.serviceId = :serviceId " +
+           "AND (:type IS NULL OR a.type = :type)")
+    List<Long> findIdsActifs(
+        @Param("serviceId") Long serviceId,
+        @Param("type") Alerte.TypeAlerte type
+    );
+
+    /**
+     * Identifiants des alertes résolues avant une date, par identifiant croissant
+     * (lot d'archivage)
+     */
+    @Query("SELECT a.id FROM Alerte a WHERE a.resolue = true AND a.dateResolution < :limite ORDER BY a.id")
+    List<Long> findIdsResoluesAvant(
+        @Param("limite") LocalDateTime limite,
+        Limit limit
+    );
+
+    /**
+     * Supprime des alertes (après copie dans l'archive)
+     */
+    @Modifying
+    @Query("DELETE FROM Alerte a WHERE a.id IN :ids")
+    int supprimerParIds(@Param("ids") Collection<Long> ids);
+}
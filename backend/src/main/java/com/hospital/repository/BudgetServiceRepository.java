@@ -18,6 +18,20 @@ public interface BudgetServiceRepository extends JpaRepository<BudgetService, Lo
      */
     Optional<BudgetService> findByServiceIdAndPeriode(Long serviceId, LocalDate periode);
     
+    /**
+     * Charge l'état des budgets d'une période sous forme de lignes
+     * [id, serviceId, budgetPrevu, statut], sans entités gérées
+     */
+    @Query("SELECT b.id, b.serviceId, b.budgetPrevu, b.statut FROM BudgetService b " +
+           "WHERE b.periode = :periode")
+    List<Object[]> findEtatsByPeriode(@Param("periode") LocalDate periode);
+
+    /**
+     * Services dont le budget de la période est en alerte ou dépassé
+     */
+    @Query("SELECT b.serviceId FROM BudgetService b WHERE b.periode = :periode AND b.statut <> 'DANS_BUDGET'")
+    List<Long> findServiceIdsHorsBudget(@Param("periode") LocalDate periode);
+
     /**
      * Trouve tous les budgets d'un service
      */
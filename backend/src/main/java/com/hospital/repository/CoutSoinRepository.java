@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,11 @@ public interface CoutSoinRepository extends JpaRepository<CoutSoin, Long> {
      * Trouve le coût détaillé d'un soin
      */
     Optional<CoutSoin> findBySoinId(Long soinId);
+
+    /**
+     * Trouve les coûts détaillés d'un ensemble de soins
+     */
+    List<CoutSoin> findBySoinIdIn(Collection<Long> soinIds);
     
     /**
      * Trouve tous les coûts d'un service (via les soins)
@@ -0,0 +1,140 @@
+package com.hospital.repository;
+
+import com.hospital.model.DepenseMensuelle;
+import com.hospital.model.HistoriqueDepense;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DepenseMensuelleRepository extends JpaRepository<DepenseMensuelle, Long> {
+
+    /**
+     * Trouve les agrégats d'un service dans une période
+     */
+    List<DepenseMensuelle> findByServiceIdAndMoisBetweenOrderByMoisAsc(
+        Long serviceId,
+        LocalDate debut,
+        LocalDate fin
+    );
+
+    /**
+     * Calcule le total mensuel d'un service (tous types confondus), trié par mois
+     */
+    @Query("SELECT d.mois, SUM(d.montant) FROM DepenseMensuelle d " +
+           "WHERE d.serviceId = :serviceId AND d.mois BETWEEN :debut AND :fin " +
+           "GROUP BY d.mois ORDER BY d.mois")
+    List<Object[]> calculerTotauxMensuels(
+        @Param("serviceId") Long serviceId,
+        @Param("debut") LocalDate debut,
+        @Param("fin") LocalDate fin
+    );
+
+    /**
+     * Calcule les totaux mensuels de plusieurs services en une seule requête,
+     * triés par service puis par mois
+     */
+    @Query("SELECT d.serviceId, d.mois, SUM(d.montant) FROM DepenseMensuelle d " +
+           "WHERE d.serviceId IN :serviceIds AND d.mois BETWEEN :debut AND :fin " +
+           "GROUP BY d.serviceId, d.mois ORDER BY d.serviceId, d.mois")
+    List<Object[]> calculerTotauxMensuelsParService(
+        @Param("serviceIds") Collection<Long> serviceIds,
+        @Param("debut") LocalDate debut,
+        @Param("fin") LocalDate fin
+    );
+
+    /**
+     * Calcule les totaux mensuels de tous les services, triés par service puis par mois
+     */
+    @Query("SELECT d.serviceId, d.mois, SUM(d.montant) FROM DepenseMensuelle d " +
+           "WHERE d.mois BETWEEN :debut AND :fin " +
+           "GROUP BY d.serviceId, d.mois ORDER BY d.serviceId, d.mois")
+    List<Object[]> calculerTotauxMensuelsTousServices(
+        @Param("debut") LocalDate debut,
+        @Param("fin") LocalDate fin
+    );
+
+    /**
+     * Ajoute un montant à un agrégat existant.
+     * Retourne 0 si l'agrégat n'existe pas encore.
+     * Requête native : en JPQL, Hibernate type le paramètre de l'addition par un
+     * cast en float($p) que H2 refuse.
+     */
+    @Modifying
+    @Query(value = "UPDATE depense_mensuelle SET montant = montant + :montant, " +
+                   "nombre_depenses = nombre_depenses + :nombre, updated_at = :maintenant " +
+                   "WHERE service_id = :serviceId AND mois = :mois AND type_depense = :typeDepense",
+           nativeQuery = true)
+    int incrementer(
+        @Param("serviceId") Long serviceId,
+        @Param("mois") LocalDate mois,
+        @Param("typeDepense") String typeDepense,
+        @Param("montant") Double montant,
+        @Param("nombre") Long nombre,
+        @Param("maintenant") LocalDateTime maintenant
+    );
+
+    /**
+     * Ajoute un montant à l'agrégat (service, mois, type) en le créant s'il
+     * n'existe pas, en une instruction (PostgreSQL). Deux créations concurrentes
+     * du même agrégat ne violent pas uk_depense_mensuelle : la seconde attend la
+     * première puis incrémente la ligne créée.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO depense_mensuelle " +
+                   "(id, service_id, mois, type_depense, montant, nombre_depenses, updated_at) " +
+                   "VALUES (nextval('depense_mensuelle_seq'), :serviceId, :mois, :typeDepense, :montant, :nombre, :maintenant) " +
+                   "ON CONFLICT (service_id, mois, type_depense) DO UPDATE SET " +
+                   "montant = depense_mensuelle.montant + EXCLUDED.montant, " +
+                   "nombre_depenses = depense_mensuelle.nombre_depenses + EXCLUDED.nombre_depenses, " +
+                   "updated_at = EXCLUDED.updated_at",
+           nativeQuery = true)
+    int ajouterPostgresql(
+        @Param("serviceId") Long serviceId,
+        @Param("mois") LocalDate mois,
+        @Param("typeDepense") String typeDepense,
+        @Param("montant") Double montant,
+        @Param("nombre") Long nombre,
+        @Param("maintenant") LocalDateTime maintenant
+    );
+
+    /**
+     * Ajoute un montant à l'agrégat (service, mois, type) en le créant s'il
+     * n'existe pas, en une instruction (MERGE, base H2)
+     */
+    @Modifying
+    @Query(value = "MERGE INTO depense_mensuelle d USING (VALUES (CAST(:serviceId AS BIGINT), CAST(:mois AS DATE), " +
+                   "CAST(:typeDepense AS VARCHAR(255)), CAST(:montant AS DOUBLE PRECISION), CAST(:nombre AS BIGINT), " +
+                   "CAST(:maintenant AS TIMESTAMP))) " +
+                   "AS a(service_id, mois, type_depense, montant, nombre_depenses, updated_at) " +
+                   "ON d.service_id = a.service_id AND d.mois = a.mois AND d.type_depense = a.type_depense " +
+                   "WHEN MATCHED THEN UPDATE SET montant = d.montant + a.montant, " +
+                   "nombre_depenses = d.nombre_depenses + a.nombre_depenses, updated_at = a.updated_at " +
+                   "WHEN NOT MATCHED THEN INSERT " +
+                   "(id, service_id, mois, type_depense, montant, nombre_depenses, updated_at) " +
+                   "VALUES (NEXT VALUE FOR depense_mensuelle_seq, a.service_id, a.mois, a.type_depense, " +
+                   "a.montant, a.nombre_depenses, a.updated_at)",
+           nativeQuery = true)
+    int ajouterH2(
+        @Param("serviceId") Long serviceId,
+        @Param("mois") LocalDate mois,
+        @Param("typeDepense") String typeDepense,
+        @Param("montant") Double montant,
+        @Param("nombre") Long nombre,
+        @Param("maintenant") LocalDateTime maintenant
+    );
+
+    /**
+     * Supprime tous les agrégats (avant reconstruction)
+     */
+    @Modifying
+    @Query("DELETE FROM DepenseMensuelle d")
+    int supprimerTout();
+}
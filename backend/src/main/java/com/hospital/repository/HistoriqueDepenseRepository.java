@@ -1,13 +1,19 @@
 package com.hospital.repository;
 
 import com.hospital.model.HistoriqueDepense;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface HistoriqueDepenseRepository extends JpaRepository<HistoriqueDepense, Long> {
@@ -45,6 +51,16 @@ public interface HistoriqueDepenseRepository extends JpaRepository<HistoriqueDep
         @Param("fin") LocalDate fin
     );
     
+    /**
+     * Calcule le total des dépenses de chaque service pour une période
+     */
+    @Query("SELECT h.serviceId, SUM(h.montant) FROM HistoriqueDepense h " +
+           "WHERE h.date BETWEEN :debut AND :fin GROUP BY h.serviceId")
+    List<Object[]> calculerTotauxParService(
+        @Param("debut") LocalDate debut,
+        @Param("fin") LocalDate fin
+    );
+
     /**
      * Calcule le total des dépenses par type pour un service
      */
@@ -57,10 +73,51 @@ public interface HistoriqueDepenseRepository extends JpaRepository<HistoriqueDep
         @Param("fin") LocalDate fin
     );
     
+    /**
+     * Regroupe tout l'historique par service, mois et type de dépense
+     * (utilisé pour reconstruire les agrégats mensuels)
+     */
+    @Query("SELECT h.serviceId, YEAR(h.date), MONTH(h.date), h.typeDepense, SUM(h.montant), COUNT(h) " +
+           "FROM HistoriqueDepense h " +
+           "GROUP BY h.serviceId, YEAR(h.date), MONTH(h.date), h.typeDepense")
+    List<Object[]> agregerParServiceMoisEtType();
+
+    /**
+     * Nombre, somme et somme des carrés des montants par service et type de
+     * dépense depuis une date (amorce des statistiques du détecteur d'anomalies)
+     */
+    @Query("SELECT h.serviceId, h.typeDepense, COUNT(h), SUM(h.montant), SUM(h.montant * h.montant) " +
+           "FROM HistoriqueDepense h WHERE h.date >= :depuis " +
+           "GROUP BY h.serviceId, h.typeDepense")
+    List<Object[]> calculerMomentsParServiceEtType(@Param("depuis") LocalDate depuis);
+
     /**
      * Trouve les dépenses récentes (derniers N jours)
      */
     @Query("SELECT h FROM HistoriqueDepense h WHERE h.date >= :dateLimite ORDER BY h.date DESC")
     List<HistoriqueDepense> findDepensesRecent(@Param("dateLimite") LocalDate dateLimite);
-}
 
+    /**
+     * Page des dépenses d'un service sur une période, d'identifiant supérieur au curseur
+     */
+    List<HistoriqueDepense> findByServiceIdAndDateBetweenAndIdGreaterThanOrderByIdAsc(
+        Long serviceId,
+        LocalDate debut,
+        LocalDate fin,
+        Long apres,
+        Limit limit
+    );
+
+    /**
+     * Parcourt les dépenses d'un service sur une période par identifiant croissant,
+     * par lots de 500 lignes
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT h FROM HistoriqueDepense h " +
+           "WHERE h.serviceId = :serviceId AND h.date BETWEEN :debut AND :fin ORDER BY h.id")
+    Stream<HistoriqueDepense> streamByServiceIdAndDateBetween(
+        @Param("serviceId") Long serviceId,
+        @Param("debut") LocalDate debut,
+        @Param("fin") LocalDate fin
+    );
+}
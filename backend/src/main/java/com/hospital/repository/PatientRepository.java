@@ -1,11 +1,18 @@
 package com.hospital.repository;
 
 import com.hospital.model.Patient;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
@@ -17,4 +24,23 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
            "LOWER(p.prenom) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
            "p.numeroSecuriteSociale LIKE CONCAT('%', :query, '%')")
     List<Patient> searchPatients(@Param("query") String query);
+
+    /**
+     * Page de patients d'identifiant supérieur au curseur
+     */
+    List<Patient> findByIdGreaterThanOrderByIdAsc(Long apres, Limit limit);
+
+    /**
+     * Parcourt tous les patients par identifiant croissant, par lots de 500 lignes
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Patient p ORDER BY p.id")
+    Stream<Patient> streamAll();
+
+    /**
+     * Parcourt les champs indexés pour la recherche (id, nom, prénom, NSS), par lots de 1000 lignes
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, p.nom, p.prenom, p.numeroSecuriteSociale FROM Patient p")
+    Stream<Object[]> streamDonneesRecherche();
 }
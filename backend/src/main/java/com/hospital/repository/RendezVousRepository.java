@@ -1,18 +1,137 @@
 package com.hospital.repository;
 
+import com.hospital.dto.RendezVousResumeDTO;
 import com.hospital.model.RendezVous;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface RendezVousRepository extends JpaRepository<RendezVous, Long> {
     
-    List<RendezVous> findByPatientId(Long patientId);
-    
-    List<RendezVous> findByDateHeureBetween(LocalDateTime start, LocalDateTime end);
-    
-    List<RendezVous> findByStatut(String statut);
+    /**
+     * Tous les rendez-vous, patient inclus (une seule requête)
+     */
+    @Query("SELECT r FROM RendezVous r LEFT JOIN FETCH r.patient ORDER BY r.id")
+    List<RendezVous> findAllAvecPatient();
+
+    /**
+     * Un rendez-vous, patient inclus
+     */
+    @Query("SELECT r FROM RendezVous r LEFT JOIN FETCH r.patient WHERE r.id = :id")
+    Optional<RendezVous> findAvecPatientById(@Param("id") Long id);
+
+    /**
+     * Rendez-vous d'un statut, patient inclus
+     */
+    @Query("SELECT r FROM RendezVous r LEFT JOIN FETCH r.patient WHERE r.statut = :statut")
+    List<RendezVous> findByStatut(@Param("statut") RendezVous.StatutRendezVous statut);
+
+    /**
+     * Nombre de rendez-vous par jour et par statut [jour, statut, nombre]
+     */
+    @Query("SELECT CAST(r.dateHeure AS LocalDate), r.statut, COUNT(r) FROM RendezVous r " +
+           "GROUP BY CAST(r.dateHeure AS LocalDate), r.statut")
+    List<Object[]> compterParJourEtStatut();
+
+    /**
+     * Agenda d'une période [debut, fin), trié par heure (projection, sans entités)
+     */
+    @Query("SELECT new com.hospital.dto.RendezVousResumeDTO(r.id, r.dateHeure, r.dureeMinutes, r.motif, " +
+           "r.statut, r.notes, p.id, CONCAT(p.prenom, ' ', p.nom), r.serieId) " +
+           "FROM RendezVous r LEFT JOIN r.patient p " +
+           "WHERE r.dateHeure >= :debut AND r.dateHeure < :fin ORDER BY r.dateHeure, r.id")
+    List<RendezVousResumeDTO> findResumesEntre(@Param("debut") LocalDateTime debut,
+                                               @Param("fin") LocalDateTime fin);
+
+    /**
+     * Rendez-vous d'un patient, du plus récent au plus ancien (projection, sans entités)
+     */
+    @Query("SELECT new com.hospital.dto.RendezVousResumeDTO(r.id, r.dateHeure, r.dureeMinutes, r.motif, " +
+           "r.statut, r.notes, p.id, CONCAT(p.prenom, ' ', p.nom), r.serieId) " +
+           "FROM RendezVous r JOIN r.patient p " +
+           "WHERE p.id = :patientId ORDER BY r.dateHeure DESC, r.id DESC")
+    List<RendezVousResumeDTO> findResumesParPatient(@Param("patientId") Long patientId);
+
+    /**
+     * Toutes les occurrences d'une série, triées par heure (projection, sans entités)
+     */
+    @Query("SELECT new com.hospital.dto.RendezVousResumeDTO(r.id, r.dateHeure, r.dureeMinutes, r.motif, " +
+           "r.statut, r.notes, p.id, CONCAT(p.prenom, ' ', p.nom), r.serieId) " +
+           "FROM RendezVous r LEFT JOIN r.patient p " +
+           "WHERE r.serieId = :serieId ORDER BY r.dateHeure, r.id")
+    List<RendezVousResumeDTO> findResumesParSerie(@Param("serieId") String serieId);
+
+    /**
+     * Occurrences d'une série à partir d'une date, triées par heure (projection, sans entités)
+     */
+    @Query("SELECT new com.hospital.dto.RendezVousResumeDTO(r.id, r.dateHeure, r.dureeMinutes, r.motif, " +
+           "r.statut, r.notes, p.id, CONCAT(p.prenom, ' ', p.nom), r.serieId) " +
+           "FROM RendezVous r LEFT JOIN r.patient p " +
+           "WHERE r.serieId = :serieId AND r.dateHeure >= :depuis ORDER BY r.dateHeure, r.id")
+    List<RendezVousResumeDTO> findResumesParSerie(@Param("serieId") String serieId,
+                                                  @Param("depuis") LocalDateTime depuis);
+
+    /**
+     * Modifie en une requête le motif et les notes (si renseignés) des
+     * occurrences d'une série à partir d'une date, dans les statuts donnés
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RendezVous r SET r.motif = COALESCE(:motif, r.motif), r.notes = COALESCE(:notes, r.notes) " +
+           "WHERE r.serieId = :serieId AND r.dateHeure >= :depuis AND r.statut IN :statuts")
+    int modifierSerie(
+        @Param("serieId") String serieId,
+        @Param("depuis") LocalDateTime depuis,
+        @Param("statuts") Collection<RendezVous.StatutRendezVous> statuts,
+        @Param("motif") String motif,
+        @Param("notes") String notes
+    );
+
+    /**
+     * Passe en une requête au statut donné les occurrences d'une série à
+     * partir d'une date, dans les statuts donnés
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RendezVous r SET r.statut = :statut " +
+           "WHERE r.serieId = :serieId AND r.dateHeure >= :depuis AND r.statut IN :statuts")
+    int changerStatutSerie(
+        @Param("serieId") String serieId,
+        @Param("depuis") LocalDateTime depuis,
+        @Param("statuts") Collection<RendezVous.StatutRendezVous> statuts,
+        @Param("statut") RendezVous.StatutRendezVous statut
+    );
+
+    /**
+     * Créneaux [id, dateHeure, dureeMinutes, statut, patientId] des rendez-vous d'une
+     * période (chargement du planning d'une journée, sans charger les patients)
+     */
+    @Query("SELECT r.id, r.dateHeure, r.dureeMinutes, r.statut, r.patient.id FROM RendezVous r " +
+           "WHERE r.dateHeure >= :debut AND r.dateHeure < :fin")
+    List<Object[]> findCreneaux(@Param("debut") LocalDateTime debut, @Param("fin") LocalDateTime fin);
+
+    /**
+     * Page de rendez-vous d'identifiant supérieur au curseur, patient inclus
+     */
+    @Query("SELECT r FROM RendezVous r LEFT JOIN FETCH r.patient WHERE r.id > :apres ORDER BY r.id")
+    List<RendezVous> findPageApres(@Param("apres") Long apres, Limit limit);
+
+    /**
+     * Parcourt tous les rendez-vous par identifiant croissant, patient inclus, par lots de 500 lignes
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT r FROM RendezVous r LEFT JOIN FETCH r.patient ORDER BY r.id")
+    Stream<RendezVous> streamAll();
 }
@@ -2,8 +2,17 @@ package com.hospital.repository;
 
 import com.hospital.model.Service;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ServiceRepository extends JpaRepository<Service, Long> {
+
+    /**
+     * Liste les identifiants de tous les services
+     */
+    @Query("SELECT s.id FROM Service s ORDER BY s.id")
+    List<Long> findAllIds();
 }
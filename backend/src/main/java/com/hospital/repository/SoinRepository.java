@@ -1,14 +1,34 @@
 package com.hospital.repository;
 
 import com.hospital.model.Soin;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface SoinRepository extends JpaRepository<Soin, Long> {
     List<Soin> findByPatientId(Long patientId);
 
     List<Soin> findByServiceId(Long serviceId);
+
+    /**
+     * Page de soins d'identifiant supérieur au curseur
+     */
+    List<Soin> findByIdGreaterThanOrderByIdAsc(Long apres, Limit limit);
+
+    /**
+     * Parcourt tous les soins par identifiant croissant, par lots de 500 lignes
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT s FROM Soin s ORDER BY s.id")
+    Stream<Soin> streamAll();
 }
@@ -1,7 +1,5 @@
 package com.hospital.security;
 
-import com.hospital.model.Utilisateur;
-import com.hospital.repository.UtilisateurRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,13 +20,13 @@ import java.util.Optional;
 /**
  * Filtre JWT pour l'authentification des requêtes
  * Vérifie le token JWT et la version du mot de passe
+ * (token vérifié et état de l'utilisateur en cache, voir ValidationJwt)
  */
 @RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final UtilisateurRepository utilisateurRepository;
+    private final ValidationJwt validationJwt;
 
     @Override
     protected void doFilterInternal(
@@ -47,24 +45,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         try {
             final String jwt = authHeader.substring(7);
-            final String email = jwtService.extractEmail(jwt);
+            // Signature et expiration vérifiées une seule fois par token (cache)
+            final ValidationJwt.JetonVerifie jeton = validationJwt.verifier(jwt);
+            final String email = jeton.email();
             
             // Si l'email est extrait et qu'aucune authentification n'existe déjà
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 
-                Optional<Utilisateur> optUser = utilisateurRepository.findByEmail(email);
+                Optional<ValidationJwt.EtatUtilisateur> optUser = validationJwt.etatUtilisateur(email);
                 
                 if (optUser.isPresent()) {
-                    Utilisateur user = optUser.get();
+                    ValidationJwt.EtatUtilisateur user = optUser.get();
                     
                     // Vérifie le token avec la version du mot de passe
-                    if (jwtService.isTokenValid(jwt, email, user.getPasswordVersion())) {
+                    if (validationJwt.estValide(jeton, user)) {
                         
                         // Crée l'authentification
                         UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             email,
                             null,
-                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
+                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.role().name()))
                         );
                         
                         authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
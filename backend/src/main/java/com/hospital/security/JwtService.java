@@ -2,11 +2,13 @@ package com.hospital.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.DecodingException;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,11 +21,44 @@ import java.util.function.Function;
 @Component
 public class JwtService {
 
-    @Value("${jwt.secret:hospital-secret-key-minimum-256-bits-pour-hs256-algorithme-securise}")
-    private String secretKey;
+    private final long jwtExpiration;
 
-    @Value("${jwt.expiration:86400000}") // 24 heures par défaut
-    private long jwtExpiration;
+    // Clé et parser sont immuables et sûrs entre threads : construits une fois au démarrage
+    private final SecretKey signInKey;
+    private final JwtParser parser;
+
+    public JwtService(
+            @Value("${jwt.secret:aG9zcGl0YWwtc2VjcmV0LWtleS1taW5pbXVtLTI1Ni1iaXRzLXBvdXItaHMyNTYtYWxnb3JpdGhtZS1zZWN1cmlzZQ==}") String secretKey,
+            @Value("${jwt.expiration:86400000}") long jwtExpiration) { // 24 heures par défaut
+        this.jwtExpiration = jwtExpiration;
+        this.signInKey = cleSignature(secretKey);
+        this.parser = Jwts.parser()
+                .verifyWith(signInKey)
+                .build();
+    }
+
+    /**
+     * Clé HMAC construite depuis jwt.secret : valeur Base64, ou à défaut le
+     * secret brut (octets UTF-8). Le secret doit faire au moins 256 bits.
+     *
+     * @throws IllegalStateException si le secret est absent ou trop court
+     */
+    static SecretKey cleSignature(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("La propriété jwt.secret est obligatoire");
+        }
+        byte[] octets;
+        try {
+            octets = Decoders.BASE64.decode(secret);
+        } catch (DecodingException e) {
+            octets = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        if (octets.length < 32) {
+            throw new IllegalStateException("La propriété jwt.secret doit faire au moins 256 bits (32 octets) : "
+                                            + octets.length * 8 + " bits fournis");
+        }
+        return Keys.hmacShaKeyFor(octets);
+    }
 
     /**
      * Extrait l'email du token JWT
@@ -67,7 +102,7 @@ public class JwtService {
                 .subject(email)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSignInKey(), Jwts.SIG.HS256)
+                .signWith(signInKey, Jwts.SIG.HS256)
                 .compact();
     }
 
@@ -76,15 +111,17 @@ public class JwtService {
      * Vérifie aussi la version du mot de passe
      */
     public boolean isTokenValid(String token, String email, Integer currentPasswordVersion) {
-        final String tokenEmail = extractEmail(token);
-        final Integer tokenPasswordVersion = extractPasswordVersion(token);
+        // Une seule analyse (et vérification de signature) pour toutes les claims
+        final Claims claims = extractAllClaims(token);
+        final String tokenEmail = claims.getSubject();
+        final Integer tokenPasswordVersion = claims.get("pwdVersion", Integer.class);
         
         // Le token est invalide si:
         // 1. L'email ne correspond pas
         // 2. Le token est expiré
         // 3. La version du mot de passe ne correspond pas (mot de passe changé)
         return tokenEmail.equals(email) 
-                && !isTokenExpired(token)
+                && !claims.getExpiration().before(new Date())
                 && (tokenPasswordVersion == null || tokenPasswordVersion.equals(currentPasswordVersion));
     }
 
@@ -103,24 +140,15 @@ public class JwtService {
     }
 
     /**
-     * Extrait toutes les claims du token
+     * Extrait toutes les claims du token, après vérification de la signature
+     * et de l'expiration
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
+    public Claims extractAllClaims(String token) {
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    /**
-     * Retourne la clé de signature
-     */
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
     /**
      * Retourne la durée d'expiration en millisecondes
      */
@@ -0,0 +1,153 @@
+package com.hospital.security;
+
+import com.hospital.model.Role;
+import com.hospital.repository.UtilisateurRepository;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Validation des tokens JWT avec cache.
+ *
+ * Un token n'est analysé et sa signature vérifiée qu'une fois : le résultat
+ * (email, version du mot de passe, expiration) est gardé, sous l'empreinte
+ * SHA-256 du token, jusqu'à l'expiration du token. La version du mot de passe
+ * et le rôle de chaque utilisateur sont aussi gardés en cache, pour une durée
+ * limitée ; AuthService invalide l'entrée dès que le mot de passe change.
+ * Les deux caches sont bornés (éviction des entrées les moins récemment utilisées).
+ */
+@Component
+public class ValidationJwt {
+
+    private final JwtService jwtService;
+    private final UtilisateurRepository utilisateurRepository;
+    private final long dureeUtilisateurMs;
+
+    private final LinkedHashMap<String, JetonVerifie> jetons;
+    private final LinkedHashMap<String, EtatUtilisateur> utilisateurs;
+    private final AtomicLong generationUtilisateurs = new AtomicLong();
+
+    public ValidationJwt(JwtService jwtService,
+                         UtilisateurRepository utilisateurRepository,
+                         @Value("${jwt.cache.taille-max:10000}") int tailleMax,
+                         @Value("${jwt.cache.duree-utilisateur-ms:300000}") long dureeUtilisateurMs) {
+        this.jwtService = jwtService;
+        this.utilisateurRepository = utilisateurRepository;
+        this.dureeUtilisateurMs = dureeUtilisateurMs;
+        this.jetons = lru(tailleMax);
+        this.utilisateurs = lru(tailleMax);
+    }
+
+    /**
+     * Vérifie la signature et l'expiration du token, en une seule analyse
+     *
+     * @throws io.jsonwebtoken.JwtException si le token est invalide ou expiré
+     */
+    public JetonVerifie verifier(String token) {
+        String cle = empreinte(token);
+        long maintenant = System.currentTimeMillis();
+        synchronized (jetons) {
+            JetonVerifie jeton = jetons.get(cle);
+            if (jeton != null) {
+                if (jeton.expiration() > maintenant) {
+                    return jeton;
+                }
+                jetons.remove(cle);
+            }
+        }
+
+        Claims claims = jwtService.extractAllClaims(token);
+        JetonVerifie jeton = new JetonVerifie(
+            claims.getSubject(),
+            claims.get("pwdVersion", Integer.class),
+            claims.getExpiration().getTime());
+        synchronized (jetons) {
+            jetons.put(cle, jeton);
+        }
+        return jeton;
+    }
+
+    /**
+     * Version du mot de passe et rôle de l'utilisateur, depuis le cache ou la base
+     */
+    public Optional<EtatUtilisateur> etatUtilisateur(String email) {
+        long maintenant = System.currentTimeMillis();
+        synchronized (utilisateurs) {
+            EtatUtilisateur etat = utilisateurs.get(email);
+            if (etat != null && maintenant - etat.chargeLe() < dureeUtilisateurMs) {
+                return Optional.of(etat);
+            }
+        }
+
+        // Une invalidation survenue pendant la lecture empêche de mettre en cache une version périmée
+        long generation = generationUtilisateurs.get();
+        Optional<EtatUtilisateur> etat = utilisateurRepository.findByEmail(email)
+            .map(u -> new EtatUtilisateur(u.getPasswordVersion(), u.getRole(), maintenant));
+        etat.ifPresent(e -> {
+            synchronized (utilisateurs) {
+                if (generationUtilisateurs.get() == generation) {
+                    utilisateurs.put(email, e);
+                }
+            }
+        });
+        return etat;
+    }
+
+    /**
+     * Indique si le token vérifié est toujours valide pour l'utilisateur
+     * (le mot de passe n'a pas changé depuis sa génération)
+     */
+    public boolean estValide(JetonVerifie jeton, EtatUtilisateur utilisateur) {
+        return jeton.expiration() > System.currentTimeMillis()
+            && (jeton.passwordVersion() == null || jeton.passwordVersion().equals(utilisateur.passwordVersion()));
+    }
+
+    /**
+     * Oublie l'état en cache d'un utilisateur (mot de passe ou rôle modifié)
+     */
+    public void invaliderUtilisateur(String email) {
+        synchronized (utilisateurs) {
+            generationUtilisateurs.incrementAndGet();
+            utilisateurs.remove(email);
+        }
+    }
+
+    private static String empreinte(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static <V> LinkedHashMap<String, V> lru(int tailleMax) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > tailleMax;
+            }
+        };
+    }
+
+    /**
+     * Contenu utile d'un token dont la signature a été vérifiée
+     */
+    public record JetonVerifie(String email, Integer passwordVersion, long expiration) {
+    }
+
+    /**
+     * État d'authentification d'un utilisateur, chargé à l'instant {@code chargeLe}
+     */
+    public record EtatUtilisateur(Integer passwordVersion, Role role, long chargeLe) {
+    }
+}
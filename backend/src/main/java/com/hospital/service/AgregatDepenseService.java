@@ -0,0 +1,123 @@
+package com.hospital.service;
+
+import com.hospital.model.DepenseMensuelle;
+import com.hospital.model.HistoriqueDepense;
+import com.hospital.repository.DepenseMensuelleRepository;
+import com.hospital.repository.HistoriqueDepenseRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service de maintenance des agrégats mensuels de dépenses.
+ * Chaque dépense enregistrée dans l'historique est reportée dans l'agrégat
+ * (service, mois, type) correspondant, dans la même transaction.
+ */
+@Service
+@Transactional
+@Slf4j
+public class AgregatDepenseService {
+
+    private final DepenseMensuelleRepository depenseMensuelleRepository;
+    private final HistoriqueDepenseRepository historiqueDepenseRepository;
+    private final CachePrevisions cachePrevisions;
+    private final boolean postgresql;
+
+    public AgregatDepenseService(DepenseMensuelleRepository depenseMensuelleRepository,
+                                 HistoriqueDepenseRepository historiqueDepenseRepository,
+                                 CachePrevisions cachePrevisions,
+                                 EntityManagerFactory entityManagerFactory) {
+        this.depenseMensuelleRepository = depenseMensuelleRepository;
+        this.historiqueDepenseRepository = historiqueDepenseRepository;
+        this.cachePrevisions = cachePrevisions;
+        this.postgresql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    /**
+     * Reporte une dépense dans son agrégat mensuel
+     */
+    public void enregistrer(HistoriqueDepense depense) {
+        ajouter(depense.getServiceId(), depense.getDate(), depense.getTypeDepense(),
+                depense.getMontant() != null ? depense.getMontant() : 0.0, 1L);
+    }
+
+    /**
+     * Ajoute un montant à l'agrégat (service, mois, type), en le créant si besoin.
+     *
+     * Un agrégat absent est créé et incrémenté en une instruction, dans la
+     * transaction de l'appelant : deux premières dépenses concurrentes du même
+     * mois ne peuvent pas violer uk_depense_mensuelle, et une transaction
+     * annulée ne laisse aucun agrégat derrière elle.
+     */
+    public void ajouter(Long serviceId, LocalDate date, HistoriqueDepense.TypeDepense typeDepense,
+                        double montant, long nombre) {
+        LocalDate mois = date.withDayOfMonth(1);
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        if (postgresql) {
+            // L'UPDATE seul, pour le cas courant, ne consomme pas de valeur de séquence
+            if (depenseMensuelleRepository.incrementer(
+                    serviceId, mois, typeDepense.name(), montant, nombre, maintenant) == 0) {
+                depenseMensuelleRepository.ajouterPostgresql(
+                    serviceId, mois, typeDepense.name(), montant, nombre, maintenant);
+            }
+        } else {
+            depenseMensuelleRepository.ajouterH2(serviceId, mois, typeDepense.name(), montant, nombre, maintenant);
+        }
+
+        // Les prévisions du service ne sont plus à jour une fois la dépense validée
+        ApresCommit.executer(() -> cachePrevisions.invaliderService(serviceId));
+    }
+
+    /**
+     * Reconstruit tous les agrégats à partir de l'historique des dépenses
+     *
+     * @return Nombre d'agrégats créés
+     */
+    public int reconstruire() {
+        long debut = System.currentTimeMillis();
+
+        depenseMensuelleRepository.supprimerTout();
+
+        List<Object[]> lignes = historiqueDepenseRepository.agregerParServiceMoisEtType();
+        List<DepenseMensuelle> agregats = new ArrayList<>(lignes.size());
+        for (Object[] ligne : lignes) {
+            DepenseMensuelle agregat = new DepenseMensuelle();
+            agregat.setServiceId((Long) ligne[0]);
+            agregat.setMois(LocalDate.of(((Number) ligne[1]).intValue(), ((Number) ligne[2]).intValue(), 1));
+            agregat.setTypeDepense((HistoriqueDepense.TypeDepense) ligne[3]);
+            agregat.setMontant(ligne[4] != null ? ((Number) ligne[4]).doubleValue() : 0.0);
+            agregat.setNombreDepenses(((Number) ligne[5]).longValue());
+            agregats.add(agregat);
+        }
+        depenseMensuelleRepository.saveAll(agregats);
+        ApresCommit.executer(cachePrevisions::invaliderTout);
+
+        log.info("Agrégats mensuels reconstruits: {} lignes en {} ms",
+                 agregats.size(), System.currentTimeMillis() - debut);
+        return agregats.size();
+    }
+
+    /**
+     * Au démarrage, construit les agrégats si la table est vide alors que
+     * l'historique contient des dépenses (base existante avant agrégation)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialiserSiVide() {
+        if (depenseMensuelleRepository.count() == 0 && historiqueDepenseRepository.count() > 0) {
+            log.info("Agrégats mensuels absents, reconstruction depuis l'historique");
+            reconstruire();
+        }
+    }
+}
@@ -5,20 +5,29 @@ import com.hospital.model.BudgetService;
 import com.hospital.repository.AlerteRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 /**
  * Service métier pour la gestion des alertes financières.
+ * Les alertes non résolues sont lues depuis IndexAlertesActives, sans
+ * transaction ni accès à la base.
  */
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class AlerteService {
 
+    private static final int TAILLE_LOT_RESOLUTION = 1000;
+
     private final AlerteRepository alerteRepository;
+    private final IndexAlertesActives indexAlertesActives;
+    private final DiffusionAlertes diffusionAlertes;
 
     /**
      * Vérifie si un budget est dépassé et crée une alerte si nécessaire
@@ -29,11 +38,7 @@ public class AlerteService {
         }
 
         // Vérifier si déjà une alerte active pour ce budget
-        List<Alerte> alertesExistantes = alerteRepository
-            .findByServiceIdAndResolueFalseOrderByDateCreationDesc(budget.getServiceId());
-        
-        boolean alerteExiste = alertesExistantes.stream()
-            .anyMatch(a -> a.getType() == Alerte.TypeAlerte.DEPASSEMENT_BUDGET);
+        boolean alerteExiste = alerteActiveExiste(budget.getServiceId(), Alerte.TypeAlerte.DEPASSEMENT_BUDGET);
 
         if (budget.getStatut() == BudgetService.StatutBudget.DEPASSE) {
             if (!alerteExiste) {
@@ -74,13 +79,34 @@ public class AlerteService {
         alerte.setDateCreation(LocalDateTime.now());
         alerte.setResolue(false);
         
-        return alerteRepository.save(alerte);
+        Alerte creee = alerteRepository.save(alerte);
+        ApresCommit.executer(() -> {
+            indexAlertesActives.ajouter(creee);
+            diffusionAlertes.alerteCreee(creee);
+        });
+        return creee;
+    }
+
+    /**
+     * Indique si une alerte non résolue de ce type existe pour le service
+     * (index en mémoire, ou base tant que l'index n'est pas chargé)
+     */
+    public boolean alerteActiveExiste(Long serviceId, Alerte.TypeAlerte type) {
+        if (indexAlertesActives.estPret()) {
+            return indexAlertesActives.contient(serviceId, type);
+        }
+        return alerteRepository.findByServiceIdAndResolueFalseOrderByDateCreationDesc(serviceId).stream()
+            .anyMatch(a -> a.getType() == type);
     }
 
     /**
      * Récupère toutes les alertes actives
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Alerte> getAlertesActives() {
+        if (indexAlertesActives.estPret()) {
+            return indexAlertesActives.getActives();
+        }
         return alerteRepository.findByResolueFalseOrderByDateCreationDesc();
     }
 
@@ -94,14 +120,22 @@ public class AlerteService {
     /**
      * Récupère les alertes actives d'un service
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Alerte> getAlertesActivesParService(Long serviceId) {
+        if (indexAlertesActives.estPret()) {
+            return indexAlertesActives.getActivesParService(serviceId);
+        }
         return alerteRepository.findByServiceIdAndResolueFalseOrderByDateCreationDesc(serviceId);
     }
 
     /**
      * Récupère les alertes critiques
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Alerte> getAlertesCritiques() {
+        if (indexAlertesActives.estPret()) {
+            return indexAlertesActives.getActivesParNiveau(Alerte.NiveauAlerte.CRITIQUE);
+        }
         return alerteRepository.findAlertesCritiques();
     }
 
@@ -113,7 +147,45 @@ public class AlerteService {
             .orElseThrow(() -> new RuntimeException("Alerte non trouvée: " + id));
         
         alerte.resoudre();
-        return alerteRepository.save(alerte);
+        Alerte resolue = alerteRepository.save(alerte);
+        ApresCommit.executer(() -> {
+            indexAlertesActives.retirer(List.of(id));
+            diffusionAlertes.alerteResolue(resolue);
+        });
+        return resolue;
+    }
+
+    /**
+     * Résout plusieurs alertes par instructions UPDATE ensemblistes
+     * (une par lot de 1000 identifiants)
+     *
+     * @return Nombre d'alertes résolues (celles déjà résolues sont ignorées)
+     */
+    public int resoudreAlertes(Collection<Long> ids) {
+        List<Long> liste = List.copyOf(new LinkedHashSet<>(ids));
+        LocalDateTime maintenant = LocalDateTime.now();
+        int resolues = 0;
+        for (int debut = 0; debut < liste.size(); debut += TAILLE_LOT_RESOLUTION) {
+            resolues += alerteRepository.resoudreParIds(
+                liste.subList(debut, Math.min(debut + TAILLE_LOT_RESOLUTION, liste.size())), maintenant);
+        }
+        ApresCommit.executer(() -> diffusionAlertes.alertesResolues(indexAlertesActives.retirer(liste)));
+        return resolues;
+    }
+
+    /**
+     * Résout toutes les alertes actives d'un service, éventuellement d'un seul type
+     *
+     * @return Nombre d'alertes résolues
+     */
+    public int resoudreAlertesService(Long serviceId, Alerte.TypeAlerte type) {
+        List<Long> ids = indexAlertesActives.estPret()
+            ? indexAlertesActives.getActivesParService(serviceId).stream()
+                .filter(a -> type == null || a.getType() == type)
+                .map(Alerte::getId)
+                .toList()
+            : alerteRepository.findIdsActifs(serviceId, type);
+        return resoudreAlertes(ids);
     }
 
     /**
@@ -142,7 +214,7 @@ public class AlerteService {
             creerAlerte(
                 Alerte.TypeAlerte.VARIATION_ANORMALE,
                 serviceId,
-                String.format("Variation anormale des dépenses: +%.1f%% par rapport au mois précédent",
+                String.format("Variation anormale des dépenses: +%.1f%% par rapport à la moyenne habituelle",
                             variationPourcentage),
                 Alerte.NiveauAlerte.WARNING
             );
@@ -150,7 +222,7 @@ public class AlerteService {
             creerAlerte(
                 Alerte.TypeAlerte.VARIATION_ANORMALE,
                 serviceId,
-                String.format("Baisse importante des dépenses: %.1f%% par rapport au mois précédent",
+                String.format("Baisse importante des dépenses: %.1f%% par rapport à la moyenne habituelle",
                             variationPourcentage),
                 Alerte.NiveauAlerte.INFO
             );
@@ -0,0 +1,232 @@
+package com.hospital.service;
+
+import com.hospital.dto.RapportAlertesPredictivesDTO;
+import com.hospital.model.Alerte;
+import com.hospital.model.BudgetService;
+import com.hospital.repository.BudgetServiceRepository;
+import com.hospital.repository.DepenseMensuelleRepository;
+import com.hospital.repository.ServiceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Alertes prédictives : dépassement de budget prévu dans les prochains mois
+ * (BUDGET_PROCHAIN_DEPASSE) et hausse soutenue des dépenses (TENDANCE_ALARMANTE).
+ *
+ * Chaque exécution lit les agrégats mensuels de tous les services en une
+ * requête, puis projette la tendance (régression linéaire sur les derniers
+ * mois complets) de chaque service en parallèle, sans accès à la base, et la
+ * compare au budget prévu de chaque mois à venir. Les alertes sont créées en
+ * une transaction ; celles qui ne sont plus justifiées sont résolues.
+ * Exécuté chaque nuit, ou à la demande.
+ */
+@Service
+@Slf4j
+public class AlertesPredictivesService {
+
+    private static final int MOIS_AVEC_DEPENSES_MIN = 3;
+
+    private final DepenseMensuelleRepository depenseMensuelleRepository;
+    private final BudgetServiceRepository budgetServiceRepository;
+    private final ServiceRepository serviceRepository;
+    private final AlerteService alerteService;
+    private final ExecuteurPrevisions executeurPrevisions;
+    private final TransactionTemplate transactionTemplate;
+    private final int moisHistorique;
+    private final int horizonMois;
+    private final double seuilTendance;
+
+    private final AtomicBoolean enCours = new AtomicBoolean();
+    private volatile RapportAlertesPredictivesDTO dernierRapport;
+
+    public AlertesPredictivesService(DepenseMensuelleRepository depenseMensuelleRepository,
+                                     BudgetServiceRepository budgetServiceRepository,
+                                     ServiceRepository serviceRepository,
+                                     AlerteService alerteService,
+                                     ExecuteurPrevisions executeurPrevisions,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${alertes.predictives.mois-historique:6}") int moisHistorique,
+                                     @Value("${alertes.predictives.horizon-mois:3}") int horizonMois,
+                                     @Value("${alertes.predictives.seuil-tendance:10}") double seuilTendance) {
+        this.depenseMensuelleRepository = depenseMensuelleRepository;
+        this.budgetServiceRepository = budgetServiceRepository;
+        this.serviceRepository = serviceRepository;
+        this.alerteService = alerteService;
+        this.executeurPrevisions = executeurPrevisions;
+        this.transactionTemplate = transactionTemplate;
+        this.moisHistorique = moisHistorique;
+        this.horizonMois = horizonMois;
+        this.seuilTendance = seuilTendance;
+    }
+
+    @Scheduled(cron = "${alertes.predictives.cron:0 0 3 * * *}")
+    public void executerPlanifie() {
+        executer();
+    }
+
+    /**
+     * Calcule les prévisions de tous les services et met à jour les alertes prédictives
+     *
+     * @return Rapport de l'exécution (null si une exécution est déjà en cours)
+     */
+    public RapportAlertesPredictivesDTO executer() {
+        if (!enCours.compareAndSet(false, true)) {
+            log.info("Calcul des alertes prédictives déjà en cours, demande ignorée");
+            return null;
+        }
+        try {
+            long debut = System.currentTimeMillis();
+            YearMonth moisCourant = YearMonth.now();
+            YearMonth premierMois = moisCourant.minusMonths(moisHistorique);
+            YearMonth dernierMois = moisCourant.minusMonths(1);
+
+            // Chargement : agrégats mensuels, budgets prévus et budgets par défaut, une requête chacun
+            Map<Long, SerieMensuelle> series = SerieMensuelle.parService(depenseMensuelleRepository
+                .calculerTotauxMensuelsTousServices(premierMois.atDay(1), dernierMois.atDay(1)));
+            Map<Long, Double> budgetsParDefaut = new HashMap<>();
+            for (com.hospital.model.Service service : serviceRepository.findAll()) {
+                budgetsParDefaut.put(service.getId(), service.getBudgetMensuel());
+            }
+            Map<Long, Map<YearMonth, Double>> budgetsPrevus = new HashMap<>();
+            for (BudgetService budget : budgetServiceRepository.findByPeriodeBetween(
+                    moisCourant.atDay(1), moisCourant.plusMonths(horizonMois).atDay(1))) {
+                budgetsPrevus.computeIfAbsent(budget.getServiceId(), s -> new HashMap<>())
+                    .put(YearMonth.from(budget.getPeriode()), budget.getBudgetPrevu());
+            }
+            long finChargement = System.currentTimeMillis();
+
+            // Calcul en parallèle, sur les données déjà chargées
+            List<Long> serviceIds = new ArrayList<>(budgetsParDefaut.keySet());
+            Map<Long, Prevision> previsions = executeurPrevisions.calculerEnParallele(serviceIds, serviceId ->
+                prevoir(series.get(serviceId), premierMois, dernierMois,
+                        budgetsPrevus.getOrDefault(serviceId, Map.of()), budgetsParDefaut.get(serviceId)));
+            long finCalcul = System.currentTimeMillis();
+
+            int[] compteurs = transactionTemplate.execute(status -> appliquer(previsions));
+
+            RapportAlertesPredictivesDTO rapport = new RapportAlertesPredictivesDTO(
+                LocalDateTime.now(),
+                serviceIds.size(),
+                (int) previsions.values().stream().filter(p -> p != null && p.moisDepassement() != null).count(),
+                (int) previsions.values().stream().filter(p -> p != null && p.tendanceAlarmante()).count(),
+                compteurs[0],
+                compteurs[1],
+                finChargement - debut,
+                finCalcul - finChargement,
+                System.currentTimeMillis() - debut
+            );
+            dernierRapport = rapport;
+            log.info("Alertes prédictives calculées: {}", rapport);
+            return rapport;
+        } finally {
+            enCours.set(false);
+        }
+    }
+
+    /**
+     * Rapport de la dernière exécution (null si aucune depuis le démarrage)
+     */
+    public RapportAlertesPredictivesDTO getDernierRapport() {
+        return dernierRapport;
+    }
+
+    /**
+     * Projette la tendance d'un service sur les mois à venir.
+     * Retourne null si l'historique est insuffisant.
+     */
+    private Prevision prevoir(SerieMensuelle serie, YearMonth premierMois, YearMonth dernierMois,
+                              Map<YearMonth, Double> budgetsPrevus, Double budgetParDefaut) {
+        if (serie == null || serie.taille() < MOIS_AVEC_DEPENSES_MIN) {
+            return null;
+        }
+        double[] montants = serie.densifier(premierMois, dernierMois);
+        double[] droite = MoteurPrevision.regressionLineaire(montants, 0, montants.length);
+        double moyenne = MoteurPrevision.moyenneMobile(montants, 0, montants.length, montants.length);
+        double croissance = moyenne > 0 ? droite[0] / moyenne * 100 : 0;
+
+        // Premier mois (courant compris) dont la dépense projetée dépasse le budget prévu
+        YearMonth moisDepassement = null;
+        double montantPrevu = 0;
+        double budget = 0;
+        for (int i = 0; i <= horizonMois; i++) {
+            YearMonth mois = dernierMois.plusMonths(i + 1);
+            Double prevu = budgetsPrevus.getOrDefault(mois, budgetParDefaut);
+            double projection = Math.max(0, droite[0] * (montants.length + i) + droite[1]);
+            if (prevu != null && prevu > 0 && projection > prevu) {
+                moisDepassement = mois;
+                montantPrevu = projection;
+                budget = prevu;
+                break;
+            }
+        }
+        return new Prevision(moisDepassement, montantPrevu, budget, croissance, croissance > seuilTendance);
+    }
+
+    /**
+     * Crée les alertes prévues et résout celles qui ne sont plus justifiées
+     *
+     * @return {alertes créées, alertes résolues}
+     */
+    private int[] appliquer(Map<Long, Prevision> previsions) {
+        int creees = 0;
+        int resolues = 0;
+        for (Map.Entry<Long, Prevision> entree : previsions.entrySet()) {
+            Long serviceId = entree.getKey();
+            Prevision prevision = entree.getValue();
+
+            boolean depassement = prevision != null && prevision.moisDepassement() != null;
+            if (depassement != alerteService.alerteActiveExiste(serviceId, Alerte.TypeAlerte.BUDGET_PROCHAIN_DEPASSE)) {
+                if (depassement) {
+                    alerteService.creerAlerte(
+                        Alerte.TypeAlerte.BUDGET_PROCHAIN_DEPASSE,
+                        serviceId,
+                        String.format("Dépassement de budget prévu en %s: %.2f€ prévus pour un budget de %.2f€",
+                                      prevision.moisDepassement(), prevision.montantPrevu(), prevision.budgetPrevu()),
+                        Alerte.NiveauAlerte.WARNING
+                    );
+                    creees++;
+                } else {
+                    resolues += alerteService.resoudreAlertesService(serviceId, Alerte.TypeAlerte.BUDGET_PROCHAIN_DEPASSE);
+                }
+            }
+
+            boolean tendance = prevision != null && prevision.tendanceAlarmante();
+            if (tendance != alerteService.alerteActiveExiste(serviceId, Alerte.TypeAlerte.TENDANCE_ALARMANTE)) {
+                if (tendance) {
+                    alerteService.creerAlerte(
+                        Alerte.TypeAlerte.TENDANCE_ALARMANTE,
+                        serviceId,
+                        String.format("Tendance alarmante: dépenses en hausse de %.1f%% par mois sur les %d derniers mois",
+                                      prevision.croissanceMensuelle(), moisHistorique),
+                        Alerte.NiveauAlerte.WARNING
+                    );
+                    creees++;
+                } else {
+                    resolues += alerteService.resoudreAlertesService(serviceId, Alerte.TypeAlerte.TENDANCE_ALARMANTE);
+                }
+            }
+        }
+        return new int[] {creees, resolues};
+    }
+
+    /**
+     * Résultat de la projection d'un service
+     *
+     * @param moisDepassement Premier mois en dépassement prévu (null si aucun sur l'horizon)
+     * @param croissanceMensuelle Pente de la tendance, en % de la dépense mensuelle moyenne
+     */
+    private record Prevision(YearMonth moisDepassement, double montantPrevu, double budgetPrevu,
+                             double croissanceMensuelle, boolean tendanceAlarmante) {
+    }
+}
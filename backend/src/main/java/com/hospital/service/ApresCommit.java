@@ -0,0 +1,46 @@
+package com.hospital.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Exécute une action une fois la transaction courante validée (ou annulée).
+ * Sans transaction active, l'action est exécutée immédiatement.
+ * Utilisé pour synchroniser les caches et index en mémoire avec la base :
+ * une transaction annulée ne doit laisser aucune trace en mémoire.
+ */
+public final class ApresCommit {
+
+    private ApresCommit() {
+    }
+
+    public static void executer(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Exécute une action si la transaction courante est annulée
+     * (sans transaction active, l'action n'est jamais exécutée)
+     */
+    public static void siAnnulee(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.hospital.service;
+
+import com.hospital.dto.RapportArchivageAlertesDTO;
+import com.hospital.repository.AlerteArchiveeRepository;
+import com.hospital.repository.AlerteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Archivage des alertes résolues depuis plus d'un certain nombre de jours :
+ * elles sont copiées dans la table alerte_archive puis supprimées de la table
+ * des alertes, qui ne garde ainsi que les alertes actives et récentes.
+ *
+ * Le travail est découpé en lots, une transaction par lot (copie puis
+ * suppression ensemblistes), pour ne jamais verrouiller longtemps la table.
+ * Exécuté chaque nuit, ou à la demande.
+ */
+@Service
+@Slf4j
+public class ArchivageAlertesService {
+
+    private final AlerteRepository alerteRepository;
+    private final AlerteArchiveeRepository alerteArchiveeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int ageJours;
+    private final int tailleLot;
+    private final AtomicBoolean enCours = new AtomicBoolean();
+
+    public ArchivageAlertesService(AlerteRepository alerteRepository,
+                                   AlerteArchiveeRepository alerteArchiveeRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${alertes.archivage.age-jours:90}") int ageJours,
+                                   @Value("${alertes.archivage.taille-lot:1000}") int tailleLot) {
+        this.alerteRepository = alerteRepository;
+        this.alerteArchiveeRepository = alerteArchiveeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ageJours = ageJours;
+        this.tailleLot = tailleLot;
+    }
+
+    @Scheduled(cron = "${alertes.archivage.cron:0 30 2 * * *}")
+    public void archiverPlanifie() {
+        archiver();
+    }
+
+    /**
+     * Archive les alertes résolues depuis plus de {@code alertes.archivage.age-jours} jours
+     *
+     * @return Rapport de l'archivage (null si un archivage est déjà en cours)
+     */
+    public RapportArchivageAlertesDTO archiver() {
+        if (!enCours.compareAndSet(false, true)) {
+            log.info("Archivage des alertes déjà en cours, demande ignorée");
+            return null;
+        }
+        try {
+            long debut = System.currentTimeMillis();
+            LocalDateTime limite = LocalDateTime.now().minusDays(ageJours);
+            int archivees = 0;
+            int lots = 0;
+
+            while (true) {
+                Integer nombre = transactionTemplate.execute(status -> archiverLot(limite));
+                if (nombre == null || nombre == 0) {
+                    break;
+                }
+                archivees += nombre;
+                lots++;
+                if (nombre < tailleLot) {
+                    break;
+                }
+            }
+
+            long duree = System.currentTimeMillis() - debut;
+            if (archivees > 0) {
+                log.info("Archivage des alertes: {} alertes résolues avant {} archivées en {} lots ({} ms)",
+                         archivees, limite, lots, duree);
+            }
+            return new RapportArchivageAlertesDTO(limite, archivees, lots, duree);
+        } finally {
+            enCours.set(false);
+        }
+    }
+
+    private int archiverLot(LocalDateTime limite) {
+        List<Long> ids = alerteRepository.findIdsResoluesAvant(limite, Limit.of(tailleLot));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        alerteArchiveeRepository.copierDepuisAlertes(ids, LocalDateTime.now());
+        alerteRepository.supprimerParIds(ids);
+        return ids.size();
+    }
+}
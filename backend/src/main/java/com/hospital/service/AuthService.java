@@ -6,6 +6,7 @@ import com.hospital.dto.LoginResponse;
 import com.hospital.model.Utilisateur;
 import com.hospital.repository.UtilisateurRepository;
 import com.hospital.security.JwtService;
+import com.hospital.security.ValidationJwt;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -29,6 +30,7 @@ public class AuthService {
     private final UtilisateurRepository utilisateurRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final ValidationJwt validationJwt;
 
     /**
      * Authentification de l'utilisateur
@@ -107,6 +109,7 @@ public class AuthService {
         user.setPasswordVersion(1);
         
         utilisateurRepository.save(user);
+        ApresCommit.executer(() -> validationJwt.invaliderUtilisateur(email));
         log.info("Mot de passe configuré avec succès pour: {}", email);
         
         // Génération du token JWT
@@ -152,6 +155,8 @@ public class AuthService {
         user.incrementPasswordVersion();
         
         utilisateurRepository.save(user);
+        // Les anciens tokens sont refusés dès la validation de la transaction
+        ApresCommit.executer(() -> validationJwt.invaliderUtilisateur(email));
         log.info("Mot de passe changé avec succès pour: {}", email);
     }
 
@@ -159,13 +164,13 @@ public class AuthService {
      * Vérifie si un token est valide pour un utilisateur
      */
     public boolean validateToken(String token, String email) {
-        Optional<Utilisateur> optUser = utilisateurRepository.findByEmail(email);
-        if (optUser.isEmpty()) {
+        ValidationJwt.JetonVerifie jeton = validationJwt.verifier(token);
+        if (!email.equals(jeton.email())) {
             return false;
         }
-        
-        Utilisateur user = optUser.get();
-        return jwtService.isTokenValid(token, email, user.getPasswordVersion());
+        return validationJwt.etatUtilisateur(email)
+                .map(user -> validationJwt.estValide(jeton, user))
+                .orElse(false);
     }
 
     /**
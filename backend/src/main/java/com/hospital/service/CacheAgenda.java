@@ -0,0 +1,208 @@
+package com.hospital.service;
+
+import com.hospital.dto.AgendaJourDTO;
+import com.hospital.dto.RendezVousResumeDTO;
+import com.hospital.model.RendezVous;
+import com.hospital.repository.RendezVousRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cache de l'agenda des rendez-vous, par jour.
+ *
+ * Chaque jour est gardé sous forme d'un instantané immuable : projections
+ * des rendez-vous triées par heure et regroupées par statut. RendezVousService
+ * met à jour le jour concerné après validation de chaque écriture, sans relire
+ * la base. Les jours de la fenêtre glissante (aujourd'hui et les jours suivants)
+ * sont chargés au démarrage puis chaque nuit ; un autre jour est chargé à sa
+ * première lecture, et gardé tant que le cache n'est pas plein.
+ */
+@Component
+@Slf4j
+public class CacheAgenda {
+
+    // Compteurs d'écritures par groupe de jours (jour % ECRITURES_GROUPES)
+    private static final int ECRITURES_GROUPES = 64;
+
+    private static final Comparator<RendezVousResumeDTO> ORDRE = Comparator
+        .comparing(RendezVousResumeDTO::getDateHeure)
+        .thenComparing(RendezVousResumeDTO::getId);
+
+    private final RendezVousRepository rendezVousRepository;
+    private final int joursFenetre;
+    private final int joursMax;
+
+    private final Map<LocalDate, AgendaJourDTO> agendas = new ConcurrentHashMap<>();
+    private final AtomicLong lectures = new AtomicLong();
+    private final AtomicLong chargements = new AtomicLong();
+    private final AtomicLongArray ecritures = new AtomicLongArray(ECRITURES_GROUPES);
+
+    public CacheAgenda(RendezVousRepository rendezVousRepository,
+                       @Value("${rendezvous.agenda.jours-fenetre:7}") int joursFenetre,
+                       @Value("${rendezvous.agenda.jours-max:90}") int joursMax) {
+        this.rendezVousRepository = rendezVousRepository;
+        this.joursFenetre = joursFenetre;
+        this.joursMax = joursMax;
+    }
+
+    /**
+     * Charge les jours de la fenêtre glissante au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prechauffer() {
+        LocalDate aujourdHui = LocalDate.now();
+        for (int i = 0; i < joursFenetre; i++) {
+            charger(aujourdHui.plusDays(i));
+        }
+        log.info("Agenda préchargé: {} jours", joursFenetre);
+    }
+
+    /**
+     * Chaque nuit : oublie les jours passés et charge le nouveau jour de la fenêtre
+     */
+    @Scheduled(cron = "${rendezvous.agenda.roulement-cron:0 1 0 * * *}")
+    public void rouler() {
+        LocalDate aujourdHui = LocalDate.now();
+        agendas.keySet().removeIf(jour -> jour.isBefore(aujourdHui));
+        prechauffer();
+    }
+
+    /**
+     * Agenda d'un jour (chargé depuis la base s'il n'est pas en cache)
+     */
+    public AgendaJourDTO getAgenda(LocalDate jour) {
+        lectures.incrementAndGet();
+        AgendaJourDTO agenda = agendas.get(jour);
+        if (agenda != null) {
+            return agenda;
+        }
+        if (agendas.size() >= joursMax && !dansFenetre(jour)) {
+            // Cache plein : un jour hors fenêtre est lu sans être gardé
+            return lire(jour);
+        }
+        return charger(jour);
+    }
+
+    /**
+     * Après validation de la transaction : place le rendez-vous dans l'agenda
+     * de son jour, et le retire de son ancien jour s'il a été déplacé
+     *
+     * @param jourPrecedent Jour du rendez-vous avant modification (null pour une création)
+     */
+    public void enregistrerApresCommit(RendezVousResumeDTO rendezVous, LocalDate jourPrecedent) {
+        LocalDate jour = rendezVous.getDateHeure().toLocalDate();
+        ApresCommit.executer(() -> {
+            if (jourPrecedent != null && !jourPrecedent.equals(jour)) {
+                ecrire(jourPrecedent);
+                agendas.computeIfPresent(jourPrecedent, (j, agenda) -> sans(agenda, rendezVous.getId()));
+            }
+            ecrire(jour);
+            agendas.computeIfPresent(jour, (j, agenda) -> avec(agenda, rendezVous));
+        });
+    }
+
+    /**
+     * Après validation de la transaction : retire le rendez-vous de l'agenda de son jour
+     */
+    public void retirerApresCommit(Long id, LocalDate jour) {
+        ApresCommit.executer(() -> {
+            ecrire(jour);
+            agendas.computeIfPresent(jour, (j, agenda) -> sans(agenda, id));
+        });
+    }
+
+    public Map<String, Object> statistiques() {
+        Map<String, Object> statistiques = new LinkedHashMap<>();
+        statistiques.put("jours", agendas.size());
+        statistiques.put("joursMax", joursMax);
+        statistiques.put("lectures", lectures.get());
+        statistiques.put("chargements", chargements.get());
+        return statistiques;
+    }
+
+    /**
+     * Charge un jour hors de la map puis le publie s'il n'y est pas déjà.
+     * Une écriture validée pendant le chargement a pu ne pas être vue par la
+     * requête et ne pas trouver le jour dans la map : le jour chargé est alors
+     * retiré (relu à la prochaine demande) au lieu de rester en cache sans elle.
+     */
+    private AgendaJourDTO charger(LocalDate jour) {
+        long version = ecritures.get(groupe(jour));
+        AgendaJourDTO agenda = lire(jour);
+        AgendaJourDTO existant = agendas.putIfAbsent(jour, agenda);
+        if (existant != null) {
+            return existant;
+        }
+        if (ecritures.get(groupe(jour)) != version) {
+            agendas.remove(jour, agenda);
+        }
+        return agenda;
+    }
+
+    private AgendaJourDTO lire(LocalDate jour) {
+        chargements.incrementAndGet();
+        return construire(jour, rendezVousRepository.findResumesEntre(
+            jour.atStartOfDay(), jour.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * Signale une écriture validée sur un jour, avant sa mise à jour dans le cache
+     */
+    private void ecrire(LocalDate jour) {
+        ecritures.incrementAndGet(groupe(jour));
+    }
+
+    private static int groupe(LocalDate jour) {
+        return (int) Math.floorMod(jour.toEpochDay(), (long) ECRITURES_GROUPES);
+    }
+
+    private boolean dansFenetre(LocalDate jour) {
+        LocalDate aujourdHui = LocalDate.now();
+        return !jour.isBefore(aujourdHui) && jour.isBefore(aujourdHui.plusDays(joursFenetre));
+    }
+
+    private static AgendaJourDTO avec(AgendaJourDTO agenda, RendezVousResumeDTO rendezVous) {
+        List<RendezVousResumeDTO> liste = new ArrayList<>(agenda.getRendezVous());
+        liste.removeIf(r -> r.getId().equals(rendezVous.getId()));
+        int position = Collections.binarySearch(liste, rendezVous, ORDRE);
+        liste.add(position < 0 ? -position - 1 : position, rendezVous);
+        return construire(agenda.getDate(), liste);
+    }
+
+    private static AgendaJourDTO sans(AgendaJourDTO agenda, Long id) {
+        List<RendezVousResumeDTO> liste = new ArrayList<>(agenda.getRendezVous());
+        return liste.removeIf(r -> r.getId().equals(id)) ? construire(agenda.getDate(), liste) : agenda;
+    }
+
+    /**
+     * Instantané d'un jour à partir de rendez-vous triés par heure
+     * (groupes par libellé de statut, dans l'ordre du cycle de vie)
+     */
+    private static AgendaJourDTO construire(LocalDate jour, List<RendezVousResumeDTO> rendezVous) {
+        Map<RendezVous.StatutRendezVous, List<RendezVousResumeDTO>> groupes =
+            new EnumMap<>(RendezVous.StatutRendezVous.class);
+        for (RendezVousResumeDTO r : rendezVous) {
+            groupes.computeIfAbsent(r.getStatut(), s -> new ArrayList<>()).add(r);
+        }
+        Map<String, List<RendezVousResumeDTO>> parStatut = new LinkedHashMap<>();
+        groupes.forEach((statut, liste) -> parStatut.put(statut.getLibelle(), List.copyOf(liste)));
+        return new AgendaJourDTO(jour, rendezVous.size(), List.copyOf(rendezVous),
+                                 Collections.unmodifiableMap(parStatut));
+    }
+}
@@ -0,0 +1,127 @@
+package com.hospital.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache borné des résultats de prévision par (service, méthode, paramètres).
+ * Les entrées les moins récemment utilisées sont évincées au-delà de la taille
+ * maximale. Le cache d'un service est invalidé dès qu'une dépense est
+ * enregistrée pour ce service ; une version par service empêche un calcul
+ * commencé avant l'invalidation d'écrire un résultat périmé.
+ */
+@Component
+public class CachePrevisions {
+
+    private final int tailleMax;
+    private final LinkedHashMap<Cle, Object> entrees;
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final AtomicLong succes = new AtomicLong();
+    private final AtomicLong echecs = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CachePrevisions(@Value("${prevision.cache.taille-max:1000}") int tailleMax) {
+        this.tailleMax = tailleMax;
+        this.entrees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Cle, Object> eldest) {
+                if (size() > CachePrevisions.this.tailleMax) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retourne le résultat en cache ou le calcule et le met en cache.
+     * Le mois courant fait partie de la clé car les fenêtres d'historique en dépendent.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obtenir(Long serviceId, String methode, Supplier<T> calcul, int... parametres) {
+        Cle cle = new Cle(serviceId, methode, YearMonth.now(), Arrays.stream(parametres).boxed().toList());
+
+        synchronized (entrees) {
+            Object valeur = entrees.get(cle);
+            if (valeur != null) {
+                succes.incrementAndGet();
+                return (T) valeur;
+            }
+        }
+        echecs.incrementAndGet();
+
+        long version = version(serviceId).get();
+        T valeur = calcul.get();
+
+        synchronized (entrees) {
+            if (version(serviceId).get() == version) {
+                entrees.put(cle, valeur);
+            }
+        }
+        return valeur;
+    }
+
+    /**
+     * Invalide toutes les prévisions d'un service
+     */
+    public void invaliderService(Long serviceId) {
+        version(serviceId).incrementAndGet();
+        synchronized (entrees) {
+            entrees.keySet().removeIf(cle -> cle.serviceId().equals(serviceId));
+        }
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Invalide toutes les prévisions
+     */
+    public void invaliderTout() {
+        versions.values().forEach(AtomicLong::incrementAndGet);
+        synchronized (entrees) {
+            entrees.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Statistiques d'utilisation du cache
+     */
+    public Map<String, Object> statistiques() {
+        long nbSucces = succes.get();
+        long nbEchecs = echecs.get();
+        long total = nbSucces + nbEchecs;
+        int taille;
+        synchronized (entrees) {
+            taille = entrees.size();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("taille", taille);
+        stats.put("tailleMax", tailleMax);
+        stats.put("succes", nbSucces);
+        stats.put("echecs", nbEchecs);
+        stats.put("tauxSucces", total > 0 ? (double) nbSucces / total : 0.0);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private AtomicLong version(Long serviceId) {
+        return versions.computeIfAbsent(serviceId, id -> new AtomicLong());
+    }
+
+    private record Cle(Long serviceId, String methode, YearMonth mois, List<Integer> parametres) {
+    }
+}
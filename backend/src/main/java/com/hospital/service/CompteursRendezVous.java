@@ -0,0 +1,117 @@
+package com.hospital.service;
+
+import com.hospital.dto.CompteursRendezVousDTO;
+import com.hospital.model.RendezVous;
+import com.hospital.repository.RendezVousRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compteurs de rendez-vous par statut, au total et par jour.
+ *
+ * Les compteurs sont calculés au démarrage par une requête d'agrégat, puis
+ * tenus à jour après validation de chaque écriture de RendezVousService
+ * (création, changement de statut ou de jour, suppression) : les tuiles du
+ * tableau de bord se lisent sans requête. Ils sont recalculés chaque nuit,
+ * ce qui corrige les écritures faites hors du service (générateur de charge,
+ * SQL direct) et les écarts d'une écriture validée pendant un recalcul.
+ */
+@Component
+@Slf4j
+public class CompteursRendezVous {
+
+    private static final RendezVous.StatutRendezVous[] STATUTS = RendezVous.StatutRendezVous.values();
+
+    private final RendezVousRepository rendezVousRepository;
+
+    // Remplacés d'un bloc à chaque recalcul
+    private volatile AtomicLongArray totaux = new AtomicLongArray(STATUTS.length);
+    private volatile Map<LocalDate, AtomicLongArray> parJour = new ConcurrentHashMap<>();
+
+    public CompteursRendezVous(RendezVousRepository rendezVousRepository) {
+        this.rendezVousRepository = rendezVousRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void charger() {
+        recalculer();
+    }
+
+    /**
+     * Recalcule tous les compteurs depuis la base (une requête)
+     */
+    @Scheduled(cron = "${rendezvous.compteurs.recalcul-cron:0 10 0 * * *}")
+    public void recalculer() {
+        AtomicLongArray nouveauxTotaux = new AtomicLongArray(STATUTS.length);
+        Map<LocalDate, AtomicLongArray> nouveauxParJour = new ConcurrentHashMap<>();
+        for (Object[] ligne : rendezVousRepository.compterParJourEtStatut()) {
+            int statut = ((RendezVous.StatutRendezVous) ligne[1]).ordinal();
+            long nombre = ((Number) ligne[2]).longValue();
+            nouveauxTotaux.addAndGet(statut, nombre);
+            nouveauxParJour.computeIfAbsent((LocalDate) ligne[0], j -> new AtomicLongArray(STATUTS.length))
+                .addAndGet(statut, nombre);
+        }
+        totaux = nouveauxTotaux;
+        parJour = nouveauxParJour;
+        log.info("Compteurs de rendez-vous calculés: {} jours", nouveauxParJour.size());
+    }
+
+    /**
+     * Après validation de la transaction : déplace le rendez-vous de son ancien
+     * couple (jour, statut) vers le nouveau
+     *
+     * @param jourPrecedent Jour avant modification (null pour une création)
+     * @param statutPrecedent Statut avant modification (null pour une création)
+     * @param jour Nouveau jour (null pour une suppression)
+     * @param statut Nouveau statut (null pour une suppression)
+     */
+    public void remplacerApresCommit(LocalDate jourPrecedent, RendezVous.StatutRendezVous statutPrecedent,
+                                     LocalDate jour, RendezVous.StatutRendezVous statut) {
+        if (statutPrecedent == statut && jourPrecedent != null && jourPrecedent.equals(jour)) {
+            return;
+        }
+        ApresCommit.executer(() -> {
+            if (jourPrecedent != null && statutPrecedent != null) {
+                ajouter(jourPrecedent, statutPrecedent, -1);
+            }
+            if (jour != null && statut != null) {
+                ajouter(jour, statut, 1);
+            }
+        });
+    }
+
+    /**
+     * Compteurs d'un jour et compteurs totaux, par statut (sans requête)
+     */
+    public CompteursRendezVousDTO getCompteurs(LocalDate jour) {
+        AtomicLongArray compteursJour = parJour.get(jour);
+        AtomicLongArray compteursTotaux = totaux;
+        Map<String, Long> duJour = new LinkedHashMap<>();
+        Map<String, Long> parStatut = new LinkedHashMap<>();
+        long totalJour = 0;
+        long total = 0;
+        for (RendezVous.StatutRendezVous statut : STATUTS) {
+            long nombreJour = compteursJour != null ? compteursJour.get(statut.ordinal()) : 0;
+            long nombre = compteursTotaux.get(statut.ordinal());
+            duJour.put(statut.getLibelle(), nombreJour);
+            parStatut.put(statut.getLibelle(), nombre);
+            totalJour += nombreJour;
+            total += nombre;
+        }
+        return new CompteursRendezVousDTO(jour, totalJour, duJour, total, parStatut);
+    }
+
+    private void ajouter(LocalDate jour, RendezVous.StatutRendezVous statut, int delta) {
+        totaux.addAndGet(statut.ordinal(), delta);
+        parJour.computeIfAbsent(jour, j -> new AtomicLongArray(STATUTS.length)).addAndGet(statut.ordinal(), delta);
+    }
+}
@@ -0,0 +1,218 @@
+package com.hospital.service;
+
+import com.hospital.model.Alerte;
+import com.hospital.model.HistoriqueDepense;
+import com.hospital.repository.HistoriqueDepenseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Détection en continu des dépenses anormales.
+ *
+ * Pour chaque couple (service, type de dépense), des statistiques glissantes
+ * sont tenues en mémoire constante : moyenne et variance (algorithme de
+ * Welford) et moyenne mobile exponentielle (EWMA) des montants. Chaque dépense
+ * validée est comparée aux statistiques, puis y est intégrée :
+ * - un montant à plus de N écarts-types de la moyenne déclenche ANOMALIE_COUT
+ * - une EWMA qui s'écarte durablement de la moyenne déclenche VARIATION_ANORMALE
+ * Aucune requête sur l'historique n'est faite en fonctionnement : les
+ * statistiques sont amorcées au démarrage par une seule requête d'agrégat.
+ *
+ * Les alertes sont créées par un thread dédié, hors de la transaction d'origine ;
+ * une alerte déjà active du même type pour le service n'est pas recréée.
+ */
+@Component
+@Slf4j
+public class DetecteurAnomaliesDepenses {
+
+    private static final int OBSERVATIONS_MIN = 30;
+    private static final double ALPHA_EWMA = 0.01;
+
+    private final AlerteService alerteService;
+    private final HistoriqueDepenseRepository historiqueDepenseRepository;
+    private final double seuilEcartType;
+    private final int moisAmorce;
+
+    private final Map<Cle, Statistiques> statistiques = new ConcurrentHashMap<>();
+    private final ExecutorService executeur = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "detecteur-anomalies");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong observations = new AtomicLong();
+    private final AtomicLong anomalies = new AtomicLong();
+    private final AtomicLong variations = new AtomicLong();
+    private final AtomicLong alertesCreees = new AtomicLong();
+
+    public DetecteurAnomaliesDepenses(AlerteService alerteService,
+                                      HistoriqueDepenseRepository historiqueDepenseRepository,
+                                      @Value("${anomalies.seuil-ecart-type:4.0}") double seuilEcartType,
+                                      @Value("${anomalies.amorce-mois:12}") int moisAmorce) {
+        this.alerteService = alerteService;
+        this.historiqueDepenseRepository = historiqueDepenseRepository;
+        this.seuilEcartType = seuilEcartType;
+        this.moisAmorce = moisAmorce;
+    }
+
+    /**
+     * Amorce les statistiques avec les dépenses des derniers mois
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void charger() {
+        LocalDate depuis = LocalDate.now().withDayOfMonth(1).minusMonths(moisAmorce);
+        for (Object[] ligne : historiqueDepenseRepository.calculerMomentsParServiceEtType(depuis)) {
+            Cle cle = new Cle((Long) ligne[0], (HistoriqueDepense.TypeDepense) ligne[1]);
+            statistiques.put(cle, Statistiques.amorcer(
+                ((Number) ligne[2]).longValue(),
+                ((Number) ligne[3]).doubleValue(),
+                ((Number) ligne[4]).doubleValue()));
+        }
+        log.info("Détecteur d'anomalies amorcé: {} séries (service, type)", statistiques.size());
+    }
+
+    /**
+     * Observe les dépenses une fois la transaction courante validée
+     */
+    public void observerApresCommit(List<HistoriqueDepense> depenses) {
+        ApresCommit.executer(() -> depenses.forEach(this::observer));
+    }
+
+    /**
+     * Compare la dépense aux statistiques de son service et de son type, puis l'y intègre
+     */
+    public void observer(HistoriqueDepense depense) {
+        if (depense.getServiceId() == null || depense.getTypeDepense() == null
+                || depense.getMontant() == null || depense.getMontant() <= 0) {
+            return;
+        }
+        observations.incrementAndGet();
+
+        Statistiques stats = statistiques.computeIfAbsent(
+            new Cle(depense.getServiceId(), depense.getTypeDepense()), c -> new Statistiques());
+        double montant = depense.getMontant();
+        double moyenne;
+        double ecarts;
+        double moyenneSerie;
+        double variation;
+        synchronized (stats) {
+            moyenne = stats.moyenne;
+            double ecartType = stats.ecartType();
+            boolean exploitable = stats.n >= OBSERVATIONS_MIN && ecartType > 0;
+            ecarts = exploitable ? (montant - moyenne) / ecartType : 0;
+            stats.ajouter(montant);
+            moyenneSerie = stats.moyenne;
+            variation = exploitable ? (stats.ewma - stats.moyenne) / stats.moyenne * 100 : 0;
+        }
+
+        Long serviceId = depense.getServiceId();
+        String type = depense.getTypeDepense().name().toLowerCase();
+        if (ecarts >= seuilEcartType) {
+            anomalies.incrementAndGet();
+            signaler(serviceId, Alerte.TypeAlerte.ANOMALIE_COUT, Alerte.NiveauAlerte.WARNING, String.format(
+                "Dépense %s anormalement élevée: %.2f€, %.1f écarts-types au-dessus de la moyenne (%.2f€)",
+                type, montant, ecarts, moyenne));
+        }
+        if (variation > 20) {
+            variations.incrementAndGet();
+            signaler(serviceId, Alerte.TypeAlerte.VARIATION_ANORMALE, Alerte.NiveauAlerte.WARNING, String.format(
+                "Variation anormale des dépenses %s: +%.1f%% (moyenne récente par rapport à la moyenne de %.2f€)",
+                type, variation, moyenneSerie));
+        } else if (variation < -30) {
+            variations.incrementAndGet();
+            signaler(serviceId, Alerte.TypeAlerte.VARIATION_ANORMALE, Alerte.NiveauAlerte.INFO, String.format(
+                "Baisse importante des dépenses %s: %.1f%% (moyenne récente par rapport à la moyenne de %.2f€)",
+                type, variation, moyenneSerie));
+        }
+    }
+
+    /**
+     * Crée l'alerte, sauf si une alerte active du même type existe déjà pour le service
+     */
+    private void signaler(Long serviceId, Alerte.TypeAlerte type, Alerte.NiveauAlerte niveau, String message) {
+        // Un seul thread : l'index des alertes actives est à jour avant la tâche suivante
+        executeur.execute(() -> {
+            try {
+                if (!alerteService.alerteActiveExiste(serviceId, type)) {
+                    alerteService.creerAlerte(type, serviceId, message, niveau);
+                    alertesCreees.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                log.error("Création de l'alerte {} du service {} en échec", type, serviceId, e);
+            }
+        });
+    }
+
+    /**
+     * Métriques du détecteur : séries suivies et compteurs
+     */
+    public Map<String, Object> getMetriques() {
+        Map<String, Object> metriques = new LinkedHashMap<>();
+        metriques.put("series", statistiques.size());
+        metriques.put("observations", observations.get());
+        metriques.put("anomalies", anomalies.get());
+        metriques.put("variations", variations.get());
+        metriques.put("alertesCreees", alertesCreees.get());
+        return metriques;
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executeur.shutdown();
+    }
+
+    private record Cle(Long serviceId, HistoriqueDepense.TypeDepense typeDepense) {
+    }
+
+    /**
+     * Statistiques glissantes d'une série de montants (accès sous son verrou)
+     */
+    private static final class Statistiques {
+
+        private long n;
+        private double moyenne;
+        private double m2;
+        private double ewma;
+
+        /**
+         * Statistiques équivalentes à n montants de somme et somme des carrés données
+         */
+        private static Statistiques amorcer(long n, double somme, double sommeCarres) {
+            Statistiques stats = new Statistiques();
+            if (n > 0) {
+                stats.n = n;
+                stats.moyenne = somme / n;
+                stats.m2 = Math.max(0, sommeCarres - somme * somme / n);
+                stats.ewma = stats.moyenne;
+            }
+            return stats;
+        }
+
+        private void ajouter(double montant) {
+            n++;
+            double delta = montant - moyenne;
+            moyenne += delta / n;
+            m2 += delta * (montant - moyenne);
+            ewma = n == 1 ? montant : ewma + ALPHA_EWMA * (montant - ewma);
+        }
+
+        private double ecartType() {
+            return n > 1 ? Math.sqrt(m2 / (n - 1)) : 0;
+        }
+    }
+}
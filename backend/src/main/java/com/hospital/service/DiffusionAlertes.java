@@ -0,0 +1,227 @@
+package com.hospital.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.dto.BudgetServiceDTO;
+import com.hospital.model.Alerte;
+import com.hospital.model.BudgetService;
+import com.hospital.repository.BudgetServiceRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Diffusion en temps réel (Server-Sent Events) des alertes et des changements
+ * de statut des budgets vers les tableaux de bord.
+ *
+ * À la connexion, l'abonné reçoit un instantané (alertes actives et budgets du
+ * mois hors limites), puis chaque création ou résolution d'alerte et chaque
+ * changement de statut d'un budget. Un abonné peut se limiter à certains
+ * services. Tout est servi depuis la mémoire (index des alertes actives, statut
+ * courant des budgets) : les abonnés ne coûtent aucune requête en base.
+ *
+ * Chaque événement est sérialisé une seule fois puis envoyé par un thread
+ * dédié, pour qu'un client lent ne ralentisse pas la transaction d'origine.
+ */
+@Component
+@Slf4j
+public class DiffusionAlertes {
+
+    private final IndexAlertesActives indexAlertesActives;
+    private final BudgetServiceRepository budgetServiceRepository;
+    private final ObjectMapper objectMapper;
+    private final long delaiExpirationMs;
+
+    private final List<Abonne> abonnes = new CopyOnWriteArrayList<>();
+    private final Map<Long, BudgetServiceDTO> budgetsCourants = new ConcurrentHashMap<>();
+    private final ExecutorService envoi = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "diffusion-alertes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DiffusionAlertes(IndexAlertesActives indexAlertesActives,
+                            BudgetServiceRepository budgetServiceRepository,
+                            ObjectMapper objectMapper,
+                            @Value("${alertes.flux.expiration-ms:1800000}") long delaiExpirationMs) {
+        this.indexAlertesActives = indexAlertesActives;
+        this.budgetServiceRepository = budgetServiceRepository;
+        this.objectMapper = objectMapper;
+        this.delaiExpirationMs = delaiExpirationMs;
+    }
+
+    /**
+     * Charge le statut des budgets du mois courant au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void charger() {
+        LocalDate mois = LocalDate.now().withDayOfMonth(1);
+        for (BudgetService budget : budgetServiceRepository.findByPeriodeBetween(mois, mois)) {
+            budgetsCourants.put(budget.getServiceId(), toDTO(budget));
+        }
+    }
+
+    /**
+     * Ouvre un flux pour un tableau de bord
+     *
+     * @param serviceIds Services suivis (vide : tous les services)
+     */
+    public SseEmitter abonner(Set<Long> serviceIds) {
+        SseEmitter emetteur = new SseEmitter(delaiExpirationMs);
+        Abonne abonne = new Abonne(emetteur, Set.copyOf(serviceIds));
+        emetteur.onCompletion(() -> abonnes.remove(abonne));
+        emetteur.onTimeout(() -> abonnes.remove(abonne));
+        emetteur.onError(e -> abonnes.remove(abonne));
+
+        // Inscription et instantané sur le thread d'envoi : tout événement
+        // postérieur à l'instantané est envoyé après lui, aucun n'est perdu
+        envoi.execute(() -> {
+            abonnes.add(abonne);
+            Map<String, Object> instantane = new LinkedHashMap<>();
+            instantane.put("alertes", indexAlertesActives.getActives().stream()
+                .filter(a -> abonne.suit(a.getServiceId()))
+                .toList());
+            instantane.put("budgets", budgetsCourants.values().stream()
+                .filter(b -> !BudgetService.StatutBudget.DANS_BUDGET.name().equals(b.getStatut()))
+                .filter(b -> abonne.suit(b.getServiceId()))
+                .toList());
+            envoyer(abonne, SseEmitter.event().name("instantane").data(serialiser(instantane), MediaType.APPLICATION_JSON));
+        });
+        return emetteur;
+    }
+
+    public void alerteCreee(Alerte alerte) {
+        diffuser("alerte-creee", alerte.getServiceId(), alerte);
+    }
+
+    public void alerteResolue(Alerte alerte) {
+        diffuser("alerte-resolue", alerte.getServiceId(), alerte);
+    }
+
+    /**
+     * Résolution groupée : un événement par service, avec les identifiants résolus
+     */
+    public void alertesResolues(List<Alerte> alertes) {
+        Map<Long, List<Long>> idsParService = new HashMap<>();
+        for (Alerte alerte : alertes) {
+            idsParService.computeIfAbsent(alerte.getServiceId(), s -> new ArrayList<>()).add(alerte.getId());
+        }
+        idsParService.forEach((serviceId, ids) -> {
+            Map<String, Object> donnees = new LinkedHashMap<>();
+            donnees.put("serviceId", serviceId);
+            donnees.put("ids", ids);
+            diffuser("alertes-resolues", serviceId, donnees);
+        });
+    }
+
+    /**
+     * Enregistre l'état d'un budget du mois courant et diffuse son statut s'il a changé
+     */
+    public void budgetEvalue(BudgetService budget) {
+        if (!budget.getPeriode().equals(LocalDate.now().withDayOfMonth(1))) {
+            return;
+        }
+        BudgetServiceDTO dto = toDTO(budget);
+        BudgetServiceDTO precedent = budgetsCourants.put(budget.getServiceId(), dto);
+        if (precedent == null || !precedent.getStatut().equals(dto.getStatut())) {
+            diffuser("budget-statut", budget.getServiceId(), dto);
+        }
+    }
+
+    public int getNombreAbonnes() {
+        return abonnes.size();
+    }
+
+    /**
+     * Commentaire SSE périodique : garde les connexions ouvertes à travers
+     * les proxys et détecte les clients partis
+     */
+    @Scheduled(fixedDelayString = "${alertes.flux.battement-ms:25000}")
+    public void battement() {
+        envoi.execute(() -> {
+            for (Abonne abonne : abonnes) {
+                envoyer(abonne, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    private void diffuser(String type, Long serviceId, Object donnees) {
+        if (abonnes.isEmpty()) {
+            return;
+        }
+        String json = serialiser(donnees);
+        envoi.execute(() -> {
+            for (Abonne abonne : abonnes) {
+                if (abonne.suit(serviceId)) {
+                    envoyer(abonne, SseEmitter.event().name(type).data(json, MediaType.APPLICATION_JSON));
+                }
+            }
+        });
+    }
+
+    private void envoyer(Abonne abonne, SseEmitter.SseEventBuilder evenement) {
+        try {
+            abonne.emetteur().send(evenement);
+        } catch (IOException | IllegalStateException e) {
+            // Client déconnecté
+            log.debug("Abonné au flux des alertes déconnecté: {}", e.getMessage());
+            abonnes.remove(abonne);
+            abonne.emetteur().completeWithError(e);
+        }
+    }
+
+    private String serialiser(Object donnees) {
+        try {
+            return objectMapper.writeValueAsString(donnees);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Sérialisation de l'événement impossible", e);
+        }
+    }
+
+    private static BudgetServiceDTO toDTO(BudgetService budget) {
+        return new BudgetServiceDTO(
+            budget.getId(),
+            budget.getServiceId(),
+            budget.getPeriode(),
+            budget.getBudgetPrevu(),
+            budget.getBudgetReel(),
+            budget.getEcart(),
+            budget.getTauxUtilisation(),
+            budget.getStatut() != null ? budget.getStatut().name() : null
+        );
+    }
+
+    @PreDestroy
+    public void arreter() {
+        envoi.shutdown();
+        abonnes.forEach(abonne -> abonne.emetteur().complete());
+    }
+
+    private record Abonne(SseEmitter emetteur, Set<Long> serviceIds) {
+
+        private boolean suit(Long serviceId) {
+            return serviceIds.isEmpty() || (serviceId != null && serviceIds.contains(serviceId));
+        }
+    }
+}
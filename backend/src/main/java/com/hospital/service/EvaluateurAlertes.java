@@ -0,0 +1,170 @@
+package com.hospital.service;
+
+import com.hospital.repository.BudgetServiceRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Évaluation asynchrone des alertes de budget.
+ *
+ * Les écritures financières ne vérifient plus les alertes elles-mêmes : elles
+ * signalent, après validation de leur transaction, le service dont le budget a
+ * changé. Un thread dédié évalue ensuite le budget du mois courant de chaque
+ * service signalé. Les signaux d'un service en attente sont regroupés en une
+ * seule évaluation ; un signal reçu pendant l'évaluation en déclenche une
+ * nouvelle, si bien qu'aucun changement validé n'est perdu (au moins une fois).
+ *
+ * Une évaluation en échec est retentée avec un délai croissant. Au démarrage,
+ * les services dont le budget du mois est hors limites sont réévalués, pour
+ * couvrir les signaux perdus lors d'un arrêt. L'évaluation étant idempotente
+ * (pas de doublon d'alerte active), une réévaluation est sans effet.
+ */
+@Component
+@Slf4j
+public class EvaluateurAlertes {
+
+    private static final int TENTATIVES_MAX = 5;
+    private static final long DELAI_RETENTATIVE_MS = 500;
+
+    private final AlerteService alerteService;
+    private final DiffusionAlertes diffusionAlertes;
+    private final BudgetServiceRepository budgetServiceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledThreadPoolExecutor executeur;
+
+    // Service en attente d'évaluation -> instant (nanos) du premier signal non traité
+    private final Map<Long, Long> enAttente = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> tentatives = new ConcurrentHashMap<>();
+
+    private final AtomicLong signaux = new AtomicLong();
+    private final AtomicLong regroupes = new AtomicLong();
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong echecs = new AtomicLong();
+    private final AtomicLong retentatives = new AtomicLong();
+    private final AtomicLong abandons = new AtomicLong();
+    private final AtomicLong dernierDelaiNanos = new AtomicLong();
+    private final AtomicLong delaiMaxNanos = new AtomicLong();
+
+    public EvaluateurAlertes(AlerteService alerteService,
+                             DiffusionAlertes diffusionAlertes,
+                             BudgetServiceRepository budgetServiceRepository,
+                             TransactionTemplate transactionTemplate) {
+        this.alerteService = alerteService;
+        this.diffusionAlertes = diffusionAlertes;
+        this.budgetServiceRepository = budgetServiceRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.executeur = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "evaluateur-alertes");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Signale, une fois la transaction courante validée, que le budget du
+     * service a changé
+     */
+    public void signalerApresCommit(Long serviceId) {
+        ApresCommit.executer(() -> signaler(serviceId));
+    }
+
+    /**
+     * Demande l'évaluation des alertes du service (regroupée avec une
+     * évaluation déjà en attente pour ce service)
+     */
+    public void signaler(Long serviceId) {
+        signaux.incrementAndGet();
+        if (enAttente.putIfAbsent(serviceId, System.nanoTime()) != null) {
+            regroupes.incrementAndGet();
+            return;
+        }
+        executeur.execute(() -> evaluer(serviceId));
+    }
+
+    /**
+     * Au démarrage, réévalue les services dont le budget du mois est hors limites
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reprendre() {
+        List<Long> serviceIds = budgetServiceRepository.findServiceIdsHorsBudget(LocalDate.now().withDayOfMonth(1));
+        serviceIds.forEach(this::signaler);
+        if (!serviceIds.isEmpty()) {
+            log.info("Reprise de l'évaluation des alertes: {} services signalés", serviceIds.size());
+        }
+    }
+
+    private void evaluer(Long serviceId) {
+        // Retiré avant l'évaluation : un signal arrivant pendant celle-ci sera évalué à nouveau
+        Long signaleA = enAttente.remove(serviceId);
+        if (signaleA != null) {
+            long delai = System.nanoTime() - signaleA;
+            dernierDelaiNanos.set(delai);
+            delaiMaxNanos.accumulateAndGet(delai, Math::max);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                budgetServiceRepository.findByServiceIdAndPeriode(serviceId, LocalDate.now().withDayOfMonth(1))
+                    .ifPresent(budget -> {
+                        alerteService.verifierDepassementBudget(budget);
+                        ApresCommit.executer(() -> diffusionAlertes.budgetEvalue(budget));
+                    }));
+            evaluations.incrementAndGet();
+            tentatives.remove(serviceId);
+        } catch (RuntimeException e) {
+            echecs.incrementAndGet();
+            int tentative = tentatives.merge(serviceId, 1, Integer::sum);
+            if (tentative < TENTATIVES_MAX) {
+                log.warn("Évaluation des alertes du service {} en échec (tentative {}): {}",
+                         serviceId, tentative, e.getMessage());
+                retentatives.incrementAndGet();
+                executeur.schedule(() -> signaler(serviceId),
+                                   DELAI_RETENTATIVE_MS << (tentative - 1), TimeUnit.MILLISECONDS);
+            } else {
+                abandons.incrementAndGet();
+                tentatives.remove(serviceId);
+                log.error("Évaluation des alertes du service {} abandonnée après {} tentatives",
+                          serviceId, tentative, e);
+            }
+        }
+    }
+
+    /**
+     * Métriques du pipeline : profondeur de la file, retard et compteurs
+     */
+    public Map<String, Object> getMetriques() {
+        long maintenant = System.nanoTime();
+        long plusAncien = enAttente.values().stream().mapToLong(t -> maintenant - t).max().orElse(0L);
+
+        Map<String, Object> metriques = new LinkedHashMap<>();
+        metriques.put("profondeurFile", enAttente.size());
+        metriques.put("retardPlusAncienMs", TimeUnit.NANOSECONDS.toMillis(plusAncien));
+        metriques.put("dernierRetardMs", TimeUnit.NANOSECONDS.toMillis(dernierDelaiNanos.get()));
+        metriques.put("retardMaxMs", TimeUnit.NANOSECONDS.toMillis(delaiMaxNanos.get()));
+        metriques.put("signaux", signaux.get());
+        metriques.put("regroupes", regroupes.get());
+        metriques.put("evaluations", evaluations.get());
+        metriques.put("echecs", echecs.get());
+        metriques.put("retentatives", retentatives.get());
+        metriques.put("abandons", abandons.get());
+        return metriques;
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executeur.shutdown();
+    }
+}
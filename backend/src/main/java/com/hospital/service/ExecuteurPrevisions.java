@@ -0,0 +1,93 @@
+package com.hospital.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Pool de threads borné pour les calculs de prévision multi-services.
+ * Les services sont répartis en lots (un lot par thread) afin que le coût
+ * de planification reste négligeable devant le calcul lui-même.
+ */
+@Component
+@Slf4j
+public class ExecuteurPrevisions {
+
+    private final ThreadPoolExecutor executor;
+    private final int nombreThreads;
+
+    public ExecuteurPrevisions(
+            @Value("${prevision.batch.threads:0}") int threads,
+            @Value("${prevision.batch.file-max:256}") int tailleFile) {
+        this.nombreThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger compteur = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            nombreThreads, nombreThreads,
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(tailleFile),
+            r -> {
+                Thread thread = new Thread(r, "prevision-" + compteur.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // File pleine : le thread appelant exécute lui-même le lot
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Applique un calcul à chaque identifiant en parallèle.
+     * Le résultat conserve l'ordre des identifiants fournis.
+     */
+    public <R> Map<Long, R> calculerEnParallele(List<Long> ids, Function<Long, R> calcul) {
+        int tailleLot = Math.max(1, (ids.size() + nombreThreads - 1) / nombreThreads);
+
+        List<Callable<List<R>>> lots = new ArrayList<>();
+        for (int debut = 0; debut < ids.size(); debut += tailleLot) {
+            List<Long> lot = ids.subList(debut, Math.min(debut + tailleLot, ids.size()));
+            lots.add(() -> {
+                List<R> resultats = new ArrayList<>(lot.size());
+                for (Long id : lot) {
+                    resultats.add(calcul.apply(id));
+                }
+                return resultats;
+            });
+        }
+
+        Map<Long, R> resultats = new LinkedHashMap<>();
+        try {
+            int indice = 0;
+            for (Future<List<R>> future : executor.invokeAll(lots)) {
+                for (R resultat : future.get()) {
+                    resultats.put(ids.get(indice++), resultat);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Calcul des prévisions interrompu", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Erreur lors du calcul des prévisions", e.getCause());
+        }
+        return resultats;
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executor.shutdown();
+    }
+}
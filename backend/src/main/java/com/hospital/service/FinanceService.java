@@ -1,16 +1,29 @@
 package com.hospital.service;
 
+import com.hospital.dto.CoutSoinRequest;
+import com.hospital.dto.PageCurseur;
+import com.hospital.dto.RapportLotCoutsDTO;
+import com.hospital.dto.RapportRecalculBudgetsDTO;
 import com.hospital.model.*;
 import com.hospital.repository.*;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service métier pour la gestion financière.
@@ -19,6 +32,7 @@ import java.util.Optional;
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Slf4j
 public class FinanceService {
 
     private final CoutSoinRepository coutSoinRepository;
@@ -26,7 +40,11 @@ public class FinanceService {
     private final HistoriqueDepenseRepository historiqueDepenseRepository;
     private final SoinRepository soinRepository;
     private final ServiceRepository serviceRepository;
-    private final AlerteService alerteService;
+    private final EvaluateurAlertes evaluateurAlertes;
+    private final AgregatDepenseService agregatDepenseService;
+    private final DetecteurAnomaliesDepenses detecteurAnomaliesDepenses;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
 
     /**
      * Calcule le coût détaillé d'un soin.
@@ -95,6 +113,121 @@ public class FinanceService {
         return calculerCoutSoin(soinId, coutPersonnel, coutMateriel, coutConsommables);
     }
 
+    /**
+     * Calcule en une fois les coûts d'un lot de soins (import depuis la facturation).
+     * - Les soins et les coûts existants sont chargés en une requête chacun
+     * - Les dépenses sont insérées en batch (identifiants par séquence)
+     * - Les agrégats mensuels et les budgets sont mis à jour une fois par clé
+     *   (service, mois, type) et par service, et non une fois par soin
+     * Les soins inconnus sont ignorés et listés dans le rapport.
+     * Si un soin apparaît plusieurs fois dans le lot, la dernière ligne est retenue.
+     */
+    public RapportLotCoutsDTO calculerCoutsSoinsEnLot(List<CoutSoinRequest> requetes) {
+        long debut = System.currentTimeMillis();
+
+        Map<Long, CoutSoinRequest> parSoin = new LinkedHashMap<>();
+        for (CoutSoinRequest requete : requetes) {
+            parSoin.put(requete.getSoinId(), requete);
+        }
+
+        Map<Long, Soin> soins = new HashMap<>();
+        for (Soin soin : soinRepository.findAllById(parSoin.keySet())) {
+            soins.put(soin.getId(), soin);
+        }
+        Map<Long, CoutSoin> existants = new HashMap<>();
+        for (CoutSoin cout : coutSoinRepository.findBySoinIdIn(parSoin.keySet())) {
+            existants.put(cout.getSoinId(), cout);
+        }
+
+        List<Long> introuvables = new ArrayList<>();
+        List<CoutSoin> couts = new ArrayList<>(parSoin.size());
+        List<HistoriqueDepense> depenses = new ArrayList<>();
+        int crees = 0;
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        for (CoutSoinRequest requete : parSoin.values()) {
+            Soin soin = soins.get(requete.getSoinId());
+            if (soin == null) {
+                introuvables.add(requete.getSoinId());
+                continue;
+            }
+
+            CoutSoin coutSoin = existants.get(soin.getId());
+            if (coutSoin == null) {
+                coutSoin = new CoutSoin();
+                coutSoin.setSoinId(soin.getId());
+                crees++;
+            }
+            coutSoin.setCoutPersonnel(requete.getCoutPersonnel() != null ? requete.getCoutPersonnel() : 0.0);
+            coutSoin.setCoutMateriel(requete.getCoutMateriel() != null ? requete.getCoutMateriel() : 0.0);
+            coutSoin.setCoutConsommables(requete.getCoutConsommables() != null ? requete.getCoutConsommables() : 0.0);
+            coutSoin.setCoutTotal(coutSoin.getCoutPersonnel() + coutSoin.getCoutMateriel()
+                                  + coutSoin.getCoutConsommables());
+            coutSoin.setDateCalcul(maintenant);
+            couts.add(coutSoin);
+
+            LocalDate date = soin.getDateSoin() != null
+                ? soin.getDateSoin().toLocalDate()
+                : LocalDate.now();
+            ajouterDepense(depenses, soin, date, coutSoin.getCoutPersonnel(),
+                           HistoriqueDepense.TypeDepense.PERSONNEL, "Coût personnel pour soin #");
+            ajouterDepense(depenses, soin, date, coutSoin.getCoutMateriel(),
+                           HistoriqueDepense.TypeDepense.MATERIEL, "Coût matériel pour soin #");
+            ajouterDepense(depenses, soin, date, coutSoin.getCoutConsommables(),
+                           HistoriqueDepense.TypeDepense.CONSOMMABLES, "Coût consommables pour soin #");
+        }
+
+        coutSoinRepository.saveAll(couts);
+
+        // Identifiants par séquence : Hibernate regroupe les insertions en batch JDBC
+        historiqueDepenseRepository.saveAll(depenses);
+        detecteurAnomaliesDepenses.observerApresCommit(depenses);
+
+        // Deltas cumulés par agrégat (service, mois, type) et par service
+        Map<CleAgregat, double[]> deltasAgregats = new HashMap<>();
+        Map<Long, Double> deltasBudgets = new LinkedHashMap<>();
+        for (HistoriqueDepense depense : depenses) {
+            CleAgregat cle = new CleAgregat(depense.getServiceId(), depense.getDate().withDayOfMonth(1),
+                                            depense.getTypeDepense());
+            double[] delta = deltasAgregats.computeIfAbsent(cle, c -> new double[2]);
+            delta[0] += depense.getMontant();
+            delta[1]++;
+            deltasBudgets.merge(depense.getServiceId(), depense.getMontant(), Double::sum);
+        }
+        deltasAgregats.forEach((cle, delta) ->
+            agregatDepenseService.ajouter(cle.serviceId(), cle.mois(), cle.typeDepense(), delta[0], (long) delta[1]));
+        deltasBudgets.forEach(this::mettreAJourBudgetService);
+
+        RapportLotCoutsDTO rapport = new RapportLotCoutsDTO(
+            parSoin.size(),
+            crees,
+            couts.size() - crees,
+            depenses.size(),
+            deltasBudgets.size(),
+            introuvables,
+            System.currentTimeMillis() - debut
+        );
+        log.info("Lot de coûts de soins traité: {}", rapport);
+        return rapport;
+    }
+
+    private void ajouterDepense(List<HistoriqueDepense> depenses, Soin soin, LocalDate date, Double montant,
+                                HistoriqueDepense.TypeDepense typeDepense, String libelle) {
+        if (montant <= 0) return;
+
+        HistoriqueDepense depense = new HistoriqueDepense();
+        depense.setServiceId(soin.getServiceId());
+        depense.setDate(date);
+        depense.setMontant(montant);
+        depense.setTypeDepense(typeDepense);
+        depense.setSoinId(soin.getId());
+        depense.setDescription(libelle + soin.getId());
+        depenses.add(depense);
+    }
+
+    private record CleAgregat(Long serviceId, LocalDate mois, HistoriqueDepense.TypeDepense typeDepense) {
+    }
+
     /**
      * Met à jour l'historique des dépenses pour un soin
      */
@@ -116,7 +249,7 @@ public class FinanceService {
             depense.setTypeDepense(HistoriqueDepense.TypeDepense.PERSONNEL);
             depense.setSoinId(soinId);
             depense.setDescription("Coût personnel pour soin #" + soinId);
-            historiqueDepenseRepository.save(depense);
+            enregistrerDepense(depense);
         }
         
         if (coutSoin.getCoutMateriel() > 0) {
@@ -127,7 +260,7 @@ public class FinanceService {
             depense.setTypeDepense(HistoriqueDepense.TypeDepense.MATERIEL);
             depense.setSoinId(soinId);
             depense.setDescription("Coût matériel pour soin #" + soinId);
-            historiqueDepenseRepository.save(depense);
+            enregistrerDepense(depense);
         }
         
         if (coutSoin.getCoutConsommables() > 0) {
@@ -138,10 +271,19 @@ public class FinanceService {
             depense.setTypeDepense(HistoriqueDepense.TypeDepense.CONSOMMABLES);
             depense.setSoinId(soinId);
             depense.setDescription("Coût consommables pour soin #" + soinId);
-            historiqueDepenseRepository.save(depense);
+            enregistrerDepense(depense);
         }
     }
 
+    /**
+     * Enregistre une dépense et la reporte dans l'agrégat mensuel
+     */
+    private void enregistrerDepense(HistoriqueDepense depense) {
+        historiqueDepenseRepository.save(depense);
+        agregatDepenseService.enregistrer(depense);
+        detecteurAnomaliesDepenses.observerApresCommit(List.of(depense));
+    }
+
     /**
      * Met à jour le budget réel d'un service pour le mois en cours
      */
@@ -170,10 +312,10 @@ public class FinanceService {
             }
         }
         
-        budget = budgetServiceRepository.save(budget);
+        budgetServiceRepository.save(budget);
         
-        // Vérifier les dépassements et créer des alertes si nécessaire
-        alerteService.verifierDepassementBudget(budget);
+        // Les dépassements sont vérifiés de façon asynchrone, après validation
+        evaluateurAlertes.signalerApresCommit(serviceId);
     }
 
     /**
@@ -207,6 +349,30 @@ public class FinanceService {
         return historiqueDepenseRepository.findByServiceIdAndDateBetween(serviceId, debut, fin);
     }
 
+    /**
+     * Page de l'historique des dépenses d'un service après le curseur (identifiant)
+     */
+    @Transactional(readOnly = true)
+    public PageCurseur<HistoriqueDepense> getHistoriqueDepensesPage(Long serviceId, LocalDate debut, LocalDate fin,
+                                                                    Long apres, int taille) {
+        List<HistoriqueDepense> lignes = historiqueDepenseRepository
+            .findByServiceIdAndDateBetweenAndIdGreaterThanOrderByIdAsc(
+                serviceId, debut, fin, apres != null ? apres : 0L, Limit.of(taille + 1));
+        return PageCurseur.depuis(lignes, taille, HistoriqueDepense::getId);
+    }
+
+    /**
+     * Transmet l'historique des dépenses d'un service ligne par ligne,
+     * sans le charger entièrement en mémoire
+     */
+    @Transactional(readOnly = true)
+    public long exporterHistoriqueDepenses(Long serviceId, LocalDate debut, LocalDate fin,
+                                           Consumer<HistoriqueDepense> consommateur) {
+        return ParcoursFlux.parcourir(
+            historiqueDepenseRepository.streamByServiceIdAndDateBetween(serviceId, debut, fin),
+            entityManager, consommateur);
+    }
+
     /**
      * Récupère les budgets dépassés
      */
@@ -221,6 +387,13 @@ public class FinanceService {
         return budgetServiceRepository.findBudgetsEnAlerte();
     }
 
+    /**
+     * Reconstruit les agrégats mensuels de dépenses depuis l'historique
+     */
+    public int reconstruireAgregatsMensuels() {
+        return agregatDepenseService.reconstruire();
+    }
+
     /**
      * Recalcule tous les budgets pour le mois en cours
      */
@@ -239,9 +412,112 @@ public class FinanceService {
                 BudgetService budget = budgetOpt.get();
                 budget.setBudgetReel(budgetReel);
                 budgetServiceRepository.save(budget);
-                alerteService.verifierDepassementBudget(budget);
+                evaluateurAlertes.signalerApresCommit(service.getId());
             }
         }
     }
-}
 
+    /**
+     * Recalcule en masse tous les budgets du mois en cours.
+     * - Agrégation : un seul GROUP BY sur l'historique pour tous les services
+     * - Chargement : services et état des budgets de la période, sans entités gérées
+     * - Écriture : mises à jour groupées en batch JDBC, création des budgets manquants
+     * - Alertes : un seul signal à l'évaluateur par service, après validation
+     *
+     * @return Rapport avec les volumes traités et la durée de chaque phase
+     */
+    public RapportRecalculBudgetsDTO recalculerBudgetsMoisCourantEnMasse() {
+        LocalDate debut = LocalDate.now().withDayOfMonth(1);
+        LocalDate fin = LocalDate.now();
+        long t0 = System.currentTimeMillis();
+
+        // Phase 1 : totaux du mois par service
+        Map<Long, Double> totaux = new HashMap<>();
+        for (Object[] ligne : historiqueDepenseRepository.calculerTotauxParService(debut, fin)) {
+            totaux.put((Long) ligne[0], ligne[1] != null ? ((Number) ligne[1]).doubleValue() : 0.0);
+        }
+        long t1 = System.currentTimeMillis();
+
+        // Phase 2 : services et budgets existants de la période
+        List<com.hospital.model.Service> services = serviceRepository.findAll();
+        Map<Long, Object[]> etats = new HashMap<>();
+        Map<Long, BudgetService.StatutBudget> statutsPrecedents = new HashMap<>();
+        for (Object[] etat : budgetServiceRepository.findEtatsByPeriode(debut)) {
+            etats.put((Long) etat[1], etat);
+            statutsPrecedents.put((Long) etat[1], (BudgetService.StatutBudget) etat[3]);
+        }
+        long t2 = System.currentTimeMillis();
+
+        // Phase 3 : calcul de l'état final et écriture groupée
+        List<BudgetService> budgets = new ArrayList<>(services.size());
+        List<BudgetService> nouveaux = new ArrayList<>();
+        List<Object[]> misesAJour = new ArrayList<>();
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        for (com.hospital.model.Service service : services) {
+            Object[] etat = etats.get(service.getId());
+
+            // Objet non géré : seul le batch JDBC écrit les budgets existants
+            BudgetService budget = new BudgetService();
+            budget.setServiceId(service.getId());
+            budget.setPeriode(debut);
+            budget.setBudgetReel(totaux.getOrDefault(service.getId(), 0.0));
+            if (etat != null) {
+                budget.setId((Long) etat[0]);
+                budget.setBudgetPrevu((Double) etat[2]);
+            } else {
+                budget.setBudgetPrevu(service.getBudgetMensuel() != null ? service.getBudgetMensuel() : 0.0);
+            }
+            budget.recalculer();
+            budgets.add(budget);
+
+            if (etat != null) {
+                misesAJour.add(new Object[] {
+                    budget.getBudgetReel(),
+                    budget.getEcart(),
+                    budget.getTauxUtilisation(),
+                    budget.getStatut().name(),
+                    maintenant,
+                    budget.getId()
+                });
+            } else {
+                nouveaux.add(budget);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(
+            "UPDATE budget_service SET budget_reel = ?, ecart = ?, taux_utilisation = ?, " +
+            "statut = ?, updated_at = ? WHERE id = ?",
+            misesAJour
+        );
+        budgetServiceRepository.saveAll(nouveaux);
+        long t3 = System.currentTimeMillis();
+
+        // Phase 4 : un signal d'évaluation d'alerte par service hors limites
+        // ou dont le statut a changé, sur l'état final
+        int alertesEvaluees = 0;
+        for (BudgetService budget : budgets) {
+            if (budget.getStatut() != BudgetService.StatutBudget.DANS_BUDGET
+                    || budget.getStatut() != statutsPrecedents.get(budget.getServiceId())) {
+                evaluateurAlertes.signalerApresCommit(budget.getServiceId());
+                alertesEvaluees++;
+            }
+        }
+        long t4 = System.currentTimeMillis();
+
+        RapportRecalculBudgetsDTO rapport = new RapportRecalculBudgetsDTO(
+            debut,
+            services.size(),
+            misesAJour.size(),
+            nouveaux.size(),
+            alertesEvaluees,
+            t1 - t0,
+            t2 - t1,
+            t3 - t2,
+            t4 - t3,
+            t4 - t0
+        );
+        log.info("Recalcul en masse des budgets: {}", rapport);
+        return rapport;
+    }
+}
@@ -0,0 +1,152 @@
+package com.hospital.service;
+
+import com.hospital.model.Alerte;
+import com.hospital.repository.AlerteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index en mémoire des alertes non résolues, par (service, type) et par niveau.
+ *
+ * Les lectures se font sur un instantané immuable (listes déjà triées par date
+ * de création décroissante), remplacé à chaque modification : la vérification
+ * de doublon et la lecture des alertes actives ne touchent pas la base.
+ * L'index est chargé au démarrage puis tenu à jour par AlerteService après
+ * validation de chaque transaction.
+ */
+@Component
+@Slf4j
+public class IndexAlertesActives {
+
+    private static final Comparator<Alerte> ORDRE = Comparator
+        .comparing(Alerte::getDateCreation, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(Alerte::getId, Comparator.reverseOrder());
+
+    private final AlerteRepository alerteRepository;
+
+    // Modifié uniquement sous le verrou de l'index
+    private final Map<Long, Alerte> parId = new HashMap<>();
+    private volatile Instantane instantane = new Instantane(List.of(), Map.of(), Map.of(), Set.of());
+    private volatile boolean pret;
+
+    public IndexAlertesActives(AlerteRepository alerteRepository) {
+        this.alerteRepository = alerteRepository;
+    }
+
+    /**
+     * Charge les alertes non résolues au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void charger() {
+        parId.clear();
+        for (Alerte alerte : alerteRepository.findByResolueFalseOrderByDateCreationDesc()) {
+            parId.put(alerte.getId(), alerte);
+        }
+        publier();
+        pret = true;
+        log.info("Index des alertes actives chargé: {} alertes", parId.size());
+    }
+
+    /**
+     * Indique si l'index est chargé et utilisable
+     */
+    public boolean estPret() {
+        return pret;
+    }
+
+    /**
+     * Ajoute ou remplace une alerte (retirée si elle est résolue)
+     */
+    public synchronized void ajouter(Alerte alerte) {
+        if (Boolean.TRUE.equals(alerte.getResolue())) {
+            parId.remove(alerte.getId());
+        } else {
+            parId.put(alerte.getId(), alerte);
+        }
+        publier();
+    }
+
+    /**
+     * Retire des alertes de l'index (résolues ou supprimées)
+     *
+     * @return Alertes effectivement retirées
+     */
+    public synchronized List<Alerte> retirer(Collection<Long> ids) {
+        List<Alerte> retirees = new ArrayList<>();
+        for (Long id : ids) {
+            Alerte alerte = parId.remove(id);
+            if (alerte != null) {
+                retirees.add(alerte);
+            }
+        }
+        if (!retirees.isEmpty()) {
+            publier();
+        }
+        return retirees;
+    }
+
+    /**
+     * Indique si une alerte non résolue de ce type existe pour le service
+     */
+    public boolean contient(Long serviceId, Alerte.TypeAlerte type) {
+        return instantane.cles().contains(new CleServiceType(serviceId, type));
+    }
+
+    /**
+     * Alertes non résolues, de la plus récente à la plus ancienne
+     */
+    public List<Alerte> getActives() {
+        return instantane.toutes();
+    }
+
+    public List<Alerte> getActivesParNiveau(Alerte.NiveauAlerte niveau) {
+        return instantane.parNiveau().getOrDefault(niveau, List.of());
+    }
+
+    public List<Alerte> getActivesParService(Long serviceId) {
+        return instantane.parService().getOrDefault(serviceId, List.of());
+    }
+
+    private void publier() {
+        List<Alerte> toutes = new ArrayList<>(parId.values());
+        toutes.sort(ORDRE);
+
+        Map<Alerte.NiveauAlerte, List<Alerte>> parNiveau = new EnumMap<>(Alerte.NiveauAlerte.class);
+        Map<Long, List<Alerte>> parService = new HashMap<>();
+        Set<CleServiceType> cles = new HashSet<>();
+        for (Alerte alerte : toutes) {
+            parNiveau.computeIfAbsent(alerte.getNiveau(), n -> new ArrayList<>()).add(alerte);
+            if (alerte.getServiceId() != null) {
+                parService.computeIfAbsent(alerte.getServiceId(), s -> new ArrayList<>()).add(alerte);
+            }
+            cles.add(new CleServiceType(alerte.getServiceId(), alerte.getType()));
+        }
+        parNiveau.replaceAll((niveau, liste) -> List.copyOf(liste));
+        parService.replaceAll((serviceId, liste) -> List.copyOf(liste));
+
+        instantane = new Instantane(List.copyOf(toutes), parNiveau, parService, cles);
+    }
+
+    private record CleServiceType(Long serviceId, Alerte.TypeAlerte type) {
+    }
+
+    private record Instantane(List<Alerte> toutes,
+                              Map<Alerte.NiveauAlerte, List<Alerte>> parNiveau,
+                              Map<Long, List<Alerte>> parService,
+                              Set<CleServiceType> cles) {
+    }
+}
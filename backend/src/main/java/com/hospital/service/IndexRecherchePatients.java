@@ -0,0 +1,403 @@
+package com.hospital.service;
+
+import com.hospital.model.Patient;
+import com.hospital.repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Index de recherche des patients en mémoire, par trigrammes.
+ * Nom, prénom et numéro de sécurité sociale sont normalisés (sans accents,
+ * en minuscules) puis découpés en trigrammes ; chaque trigramme pointe vers
+ * la liste triée des patients qui le contiennent.
+ *
+ * Un mot de recherche d'au moins 3 caractères trouve les patients qui le
+ * contiennent n'importe où (comme LIKE '%q%') ; un mot de 1 ou 2 caractères
+ * trouve les patients dont un mot commence par lui. Les résultats sont classés
+ * (correspondance exacte, puis préfixe, puis sous-chaîne ; à score égal, par
+ * ordre d'indexation) et limités aux K meilleurs.
+ *
+ * L'index est chargé au démarrage puis tenu à jour par PatientService après
+ * validation de chaque transaction.
+ */
+@Component
+@Slf4j
+public class IndexRecherchePatients {
+
+    private static final int SCORE_EXACT = 100;
+    private static final int SCORE_PREFIXE = 60;
+    private static final int SCORE_PREFIXE_NSS = 50;
+    private static final int SCORE_SOUS_CHAINE = 20;
+    private static final int SCORE_SOUS_CHAINE_NSS = 10;
+
+    private final PatientRepository patientRepository;
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> slotParId = new HashMap<>();
+    private final Map<String, Integer> champsExacts = new HashMap<>();
+    private Entree[] entrees = new Entree[1024];
+    private final BitSet supprimes = new BitSet();
+    private int nombreSlots;
+    private int nombreSupprimes;
+    private volatile boolean pret;
+
+    public IndexRecherchePatients(PatientRepository patientRepository) {
+        this.patientRepository = patientRepository;
+    }
+
+    /**
+     * Charge l'index depuis la base au démarrage.
+     * Le verrou est pris avant la lecture : une mise à jour validée après la
+     * lecture attend la fin du chargement puis s'applique, au lieu d'être
+     * effacée par le chargement.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void charger() {
+        long debut = System.currentTimeMillis();
+        verrou.writeLock().lock();
+        try (Stream<Object[]> lignes = patientRepository.streamDonneesRecherche()) {
+            vider();
+            lignes.forEach(l -> ajouter((Long) l[0], (String) l[1], (String) l[2], (String) l[3]));
+        } finally {
+            verrou.writeLock().unlock();
+        }
+        pret = true;
+        log.info("Index de recherche des patients chargé: {} patients, {} trigrammes en {} ms",
+                 taille(), postings.size(), System.currentTimeMillis() - debut);
+    }
+
+    /**
+     * Indique si l'index est chargé et utilisable
+     */
+    public boolean estPret() {
+        return pret;
+    }
+
+    public void indexer(Patient patient) {
+        indexer(patient.getId(), patient.getNom(), patient.getPrenom(), patient.getNumeroSecuriteSociale());
+    }
+
+    /**
+     * Ajoute ou remplace un patient dans l'index
+     */
+    public void indexer(Long id, String nom, String prenom, String numeroSecuriteSociale) {
+        verrou.writeLock().lock();
+        try {
+            marquerSupprime(id);
+            ajouter(id, nom, prenom, numeroSecuriteSociale);
+            compacterSiNecessaire();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire un patient de l'index
+     */
+    public void retirer(Long id) {
+        verrou.writeLock().lock();
+        try {
+            marquerSupprime(id);
+            compacterSiNecessaire();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public int taille() {
+        verrou.readLock().lock();
+        try {
+            return slotParId.size();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche les patients correspondant à la requête
+     *
+     * @return Identifiants des {@code limite} meilleurs résultats, du plus pertinent au moins pertinent
+     */
+    public List<Long> rechercher(String requete, int limite) {
+        String[] mots = mots(NormalisationTexte.normaliser(requete));
+        if (mots.length == 0 || limite <= 0) {
+            return List.of();
+        }
+
+        List<Long> cles = new ArrayList<>();
+        for (String mot : mots) {
+            trigrammesRequete(mot, cles);
+        }
+        String[] debutsDeMot = new String[mots.length];
+        for (int i = 0; i < mots.length; i++) {
+            debutsDeMot[i] = " " + mots[i];
+        }
+
+        verrou.readLock().lock();
+        try {
+            Postings[] listes = new Postings[cles.size()];
+            for (int i = 0; i < listes.length; i++) {
+                listes[i] = postings.get(cles.get(i));
+                if (listes[i] == null) {
+                    return List.of();
+                }
+            }
+            Arrays.sort(listes, Comparator.comparingInt(p -> p.taille));
+
+            // Tas des meilleurs résultats, le moins bon en tête. Les slots sont
+            // parcourus en ordre croissant : à score égal, un candidat arrivé plus
+            // tard est moins bien classé et peut être écarté sans être ajouté.
+            PriorityQueue<Resultat> meilleurs = new PriorityQueue<>(limite + 1, Resultat.ORDRE.reversed());
+            int scoreMax = 0;
+            for (String mot : mots) {
+                scoreMax += champsExacts.containsKey(mot) ? SCORE_EXACT : SCORE_PREFIXE;
+            }
+            int[] positions = new int[listes.length];
+            Postings plusPetite = listes[0];
+            for (int i = 0; i < plusPetite.taille; i++) {
+                int slot = plusPetite.slots[i];
+                if (supprimes.get(slot) || !presentDansToutes(listes, positions, slot)) {
+                    continue;
+                }
+                int score = score(entrees[slot], mots, debutsDeMot);
+                if (score < 0 || (meilleurs.size() == limite && score <= meilleurs.peek().score)) {
+                    continue;
+                }
+                meilleurs.add(new Resultat(slot, entrees[slot].id, score));
+                if (meilleurs.size() > limite) {
+                    meilleurs.poll();
+                }
+                // K résultats au score maximal atteignable : aucun candidat suivant ne peut les dépasser
+                if (meilleurs.size() == limite && meilleurs.peek().score == scoreMax) {
+                    break;
+                }
+            }
+
+            Resultat[] tries = meilleurs.toArray(new Resultat[0]);
+            Arrays.sort(tries, Resultat.ORDRE);
+            List<Long> ids = new ArrayList<>(tries.length);
+            for (Resultat resultat : tries) {
+                ids.add(resultat.id);
+            }
+            return ids;
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    // ----- Construction de l'index (appelée sous verrou d'écriture) -----
+
+    private void vider() {
+        postings.clear();
+        slotParId.clear();
+        champsExacts.clear();
+        entrees = new Entree[1024];
+        supprimes.clear();
+        nombreSlots = 0;
+        nombreSupprimes = 0;
+    }
+
+    private void ajouter(Long id, String nom, String prenom, String numeroSecuriteSociale) {
+        ajouter(new Entree(id,
+            NormalisationTexte.normaliser(nom),
+            NormalisationTexte.normaliser(prenom),
+            NormalisationTexte.normaliser(numeroSecuriteSociale)));
+    }
+
+    private void ajouter(Entree entree) {
+        if (nombreSlots == entrees.length) {
+            entrees = Arrays.copyOf(entrees, entrees.length * 2);
+        }
+        int slot = nombreSlots++;
+        entrees[slot] = entree;
+        slotParId.put(entree.id, slot);
+        champsExacts.merge(entree.nom, 1, Integer::sum);
+        champsExacts.merge(entree.prenom, 1, Integer::sum);
+
+        List<Long> cles = new ArrayList<>();
+        trigrammesTexte(entree.nom, cles);
+        trigrammesTexte(entree.prenom, cles);
+        trigrammesTexte(entree.nss, cles);
+        for (Long cle : cles) {
+            // Les slots sont attribués en ordre croissant : chaque liste reste triée
+            postings.computeIfAbsent(cle, c -> new Postings()).ajouter(slot);
+        }
+    }
+
+    private void marquerSupprime(Long id) {
+        Integer slot = slotParId.remove(id);
+        if (slot != null) {
+            Entree entree = entrees[slot];
+            champsExacts.computeIfPresent(entree.nom, (champ, nombre) -> nombre > 1 ? nombre - 1 : null);
+            champsExacts.computeIfPresent(entree.prenom, (champ, nombre) -> nombre > 1 ? nombre - 1 : null);
+            supprimes.set(slot);
+            entrees[slot] = null;
+            nombreSupprimes++;
+        }
+    }
+
+    /**
+     * Reconstruit l'index quand plus d'un quart des slots sont des patients supprimés ou remplacés
+     */
+    private void compacterSiNecessaire() {
+        if (nombreSupprimes < 1024 || nombreSupprimes * 4 < nombreSlots) {
+            return;
+        }
+        List<Entree> vivantes = new ArrayList<>(slotParId.size());
+        for (int slot = 0; slot < nombreSlots; slot++) {
+            if (!supprimes.get(slot)) {
+                vivantes.add(entrees[slot]);
+            }
+        }
+        vider();
+        for (Entree entree : vivantes) {
+            ajouter(entree);
+        }
+    }
+
+    // ----- Trigrammes -----
+
+    /**
+     * Trigrammes d'un texte indexé : chaque mot est précédé de deux espaces,
+     * ce qui ajoute les trigrammes de début de mot ("  d", " du") utilisés
+     * par les requêtes courtes. Les doublons sont éliminés.
+     */
+    private static void trigrammesTexte(String texte, List<Long> cles) {
+        for (String mot : mots(texte)) {
+            String complete = "  " + mot;
+            for (int i = 0; i + 3 <= complete.length(); i++) {
+                long cle = cle(complete.charAt(i), complete.charAt(i + 1), complete.charAt(i + 2));
+                if (!cles.contains(cle)) {
+                    cles.add(cle);
+                }
+            }
+        }
+    }
+
+    /**
+     * Trigrammes d'un mot de la requête : trigrammes internes pour 3 caractères
+     * ou plus (sous-chaîne), trigramme de début de mot sinon (préfixe)
+     */
+    private static void trigrammesRequete(String mot, List<Long> cles) {
+        if (mot.length() == 1) {
+            cles.add(cle(' ', ' ', mot.charAt(0)));
+        } else if (mot.length() == 2) {
+            cles.add(cle(' ', mot.charAt(0), mot.charAt(1)));
+        } else {
+            for (int i = 0; i + 3 <= mot.length(); i++) {
+                cles.add(cle(mot.charAt(i), mot.charAt(i + 1), mot.charAt(i + 2)));
+            }
+        }
+    }
+
+    private static long cle(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static String[] mots(String texte) {
+        return texte.isEmpty() ? new String[0] : texte.split(" ");
+    }
+
+    /**
+     * Vérifie que le slot est présent dans toutes les listes (hors la première).
+     * Les slots candidats arrivent en ordre croissant : chaque liste est avancée
+     * depuis sa position courante par recherche exponentielle puis dichotomique.
+     */
+    private static boolean presentDansToutes(Postings[] listes, int[] positions, int slot) {
+        for (int i = 1; i < listes.length; i++) {
+            int[] slots = listes[i].slots;
+            int taille = listes[i].taille;
+            int debut = positions[i];
+            int pas = 1;
+            while (debut + pas < taille && slots[debut + pas] < slot) {
+                debut += pas;
+                pas <<= 1;
+            }
+            int indice = Arrays.binarySearch(slots, debut, Math.min(debut + pas + 1, taille), slot);
+            if (indice < 0) {
+                positions[i] = Math.min(-indice - 1, taille);
+                return false;
+            }
+            positions[i] = indice;
+        }
+        return true;
+    }
+
+    // ----- Classement -----
+
+    /**
+     * Score d'un patient pour les mots de la requête, ou -1 si un mot ne correspond
+     * pas (les trigrammes ne garantissent pas la présence du mot entier)
+     */
+    private static int score(Entree entree, String[] mots, String[] debutsDeMot) {
+        int total = 0;
+        for (int i = 0; i < mots.length; i++) {
+            String mot = mots[i];
+            int meilleur = Math.max(scoreTexte(entree.nom, mot, debutsDeMot[i]),
+                                    scoreTexte(entree.prenom, mot, debutsDeMot[i]));
+            if (entree.nss.startsWith(mot)) {
+                meilleur = Math.max(meilleur, SCORE_PREFIXE_NSS);
+            } else if (mot.length() >= 3 && entree.nss.contains(mot)) {
+                meilleur = Math.max(meilleur, SCORE_SOUS_CHAINE_NSS);
+            }
+            if (meilleur == 0) {
+                return -1;
+            }
+            total += meilleur;
+        }
+        return total;
+    }
+
+    private static int scoreTexte(String texte, String mot, String debutDeMot) {
+        if (texte.equals(mot)) {
+            return SCORE_EXACT;
+        }
+        if (texte.startsWith(mot) || texte.contains(debutDeMot)) {
+            return SCORE_PREFIXE;
+        }
+        if (mot.length() >= 3 && texte.contains(mot)) {
+            return SCORE_SOUS_CHAINE;
+        }
+        return 0;
+    }
+
+    private record Entree(Long id, String nom, String prenom, String nss) {
+    }
+
+    private record Resultat(int slot, Long id, int score) {
+        static final Comparator<Resultat> ORDRE = Comparator
+            .comparingInt((Resultat r) -> -r.score)
+            .thenComparingInt(r -> r.slot);
+    }
+
+    /**
+     * Liste triée de slots, en tableau primitif extensible
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int taille;
+
+        private void ajouter(int slot) {
+            if (taille == slots.length) {
+                slots = Arrays.copyOf(slots, taille * 2);
+            }
+            slots[taille++] = slot;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.hospital.service;
+
+import com.hospital.dto.PatientSuggestionDTO;
+import com.hospital.model.Patient;
+import com.hospital.repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Index de saisie semi-automatique des patients, par préfixe.
+ * Chaque mot normalisé du nom et du prénom, ainsi que le NSS, forme une clé
+ * (mot, id) ; les clés sont rangées dans un tableau trié où un préfixe se
+ * retrouve par recherche dichotomique puis parcours séquentiel.
+ *
+ * Les modifications ne touchent pas le tableau : les nouvelles clés vont dans
+ * un ensemble trié, les anciennes clés d'un patient modifié ou supprimé sont
+ * ignorées grâce à une liste d'identifiants périmés. Au-delà d'un seuil,
+ * l'ensemble est fusionné dans un nouveau tableau, publié d'un seul coup
+ * pour les lectures en cours.
+ *
+ * Une recherche s'arrête dès qu'elle a trouvé K suggestions, après un nombre
+ * maximal de clés parcourues, ou quand elle est annulée (requête remplacée
+ * par une saisie plus récente du même client).
+ */
+@Component
+@Slf4j
+public class IndexSaisiePatients {
+
+    private static final int SEUIL_FUSION = 20_000;
+    private static final int CLES_PARCOURUES_MAX = 50_000;
+    private static final int INTERVALLE_ANNULATION = 256;
+
+    private static final Comparator<Cle> ORDRE = Comparator.comparing(Cle::mot).thenComparingLong(Cle::id);
+
+    private final PatientRepository patientRepository;
+    private final Map<Long, Fiche> fiches = new ConcurrentHashMap<>();
+    private volatile Etat etat = new Etat(new String[0], new long[0]);
+    private volatile boolean pret;
+
+    public IndexSaisiePatients(PatientRepository patientRepository) {
+        this.patientRepository = patientRepository;
+    }
+
+    /**
+     * Charge l'index depuis la base au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void charger() {
+        long debut = System.currentTimeMillis();
+        fiches.clear();
+        List<Cle> cles = new ArrayList<>();
+        try (Stream<Object[]> lignes = patientRepository.streamDonneesRecherche()) {
+            lignes.forEach(l -> {
+                Fiche fiche = fiche((Long) l[0], (String) l[1], (String) l[2], (String) l[3]);
+                fiches.put(fiche.suggestion.getId(), fiche);
+                for (String mot : fiche.mots) {
+                    cles.add(new Cle(mot, fiche.suggestion.getId()));
+                }
+            });
+        }
+        etat = construire(cles);
+        pret = true;
+        log.info("Index de saisie des patients chargé: {} patients, {} clés en {} ms",
+                 fiches.size(), cles.size(), System.currentTimeMillis() - debut);
+    }
+
+    /**
+     * Indique si l'index est chargé et utilisable
+     */
+    public boolean estPret() {
+        return pret;
+    }
+
+    public void indexer(Patient patient) {
+        indexer(patient.getId(), patient.getNom(), patient.getPrenom(), patient.getNumeroSecuriteSociale());
+    }
+
+    /**
+     * Ajoute ou remplace un patient dans l'index
+     */
+    public synchronized void indexer(Long id, String nom, String prenom, String numeroSecuriteSociale) {
+        Fiche fiche = fiche(id, nom, prenom, numeroSecuriteSociale);
+        Fiche ancienne = fiches.put(id, fiche);
+        if (ancienne != null) {
+            oublier(ancienne);
+        }
+        for (String mot : fiche.mots) {
+            etat.ajouts.add(new Cle(mot, id));
+        }
+        fusionnerSiNecessaire();
+    }
+
+    /**
+     * Retire un patient de l'index
+     */
+    public synchronized void retirer(Long id) {
+        Fiche ancienne = fiches.remove(id);
+        if (ancienne != null) {
+            oublier(ancienne);
+        }
+        fusionnerSiNecessaire();
+    }
+
+    public int taille() {
+        return fiches.size();
+    }
+
+    /**
+     * Suggestions pour une saisie : patients dont un mot commence par chacun
+     * des mots saisis, classés par mot trouvé puis par identifiant
+     *
+     * @param annulee Consulté régulièrement pendant le parcours ; la recherche
+     *                est abandonnée dès qu'il renvoie vrai
+     * @throws RechercheAnnuleeException si la recherche a été annulée
+     */
+    public List<PatientSuggestionDTO> suggerer(String saisie, int limite, BooleanSupplier annulee) {
+        String[] mots = mots(NormalisationTexte.normaliser(saisie));
+        if (mots.length == 0 || limite <= 0) {
+            return List.of();
+        }
+        // Le mot le plus long est le plus sélectif : il sert à parcourir l'index,
+        // les autres filtrent les candidats
+        int pivot = 0;
+        for (int i = 1; i < mots.length; i++) {
+            if (mots[i].length() > mots[pivot].length()) {
+                pivot = i;
+            }
+        }
+        String prefixe = mots[pivot];
+
+        Etat courant = etat;
+        int position = courant.debut(prefixe);
+        Iterator<Cle> ajouts = courant.ajouts.tailSet(new Cle(prefixe, Long.MIN_VALUE)).iterator();
+        Cle ajout = ajouts.hasNext() ? ajouts.next() : null;
+
+        Set<Long> vus = new HashSet<>();
+        List<PatientSuggestionDTO> suggestions = new ArrayList<>(limite);
+        int parcourues = 0;
+        while (suggestions.size() < limite && parcourues < CLES_PARCOURUES_MAX) {
+            if (++parcourues % INTERVALLE_ANNULATION == 0 && annulee.getAsBoolean()) {
+                throw new RechercheAnnuleeException();
+            }
+
+            // Fusion des deux parcours triés : tableau de base et ajouts récents
+            boolean baseValide = position < courant.mots.length && courant.mots[position].startsWith(prefixe);
+            boolean ajoutValide = ajout != null && ajout.mot.startsWith(prefixe);
+            long id;
+            if (baseValide && (!ajoutValide || courant.comparer(position, ajout) <= 0)) {
+                id = courant.ids[position++];
+                if (courant.perimes.contains(id)) {
+                    continue;
+                }
+            } else if (ajoutValide) {
+                id = ajout.id;
+                ajout = ajouts.hasNext() ? ajouts.next() : null;
+            } else {
+                break;
+            }
+
+            Fiche fiche = fiches.get(id);
+            // Tous les mots sont vérifiés sur la fiche courante : une clé lue dans
+            // une version précédente de l'index peut désigner un patient modifié depuis
+            if (fiche != null && vus.add(id) && correspond(fiche, mots)) {
+                suggestions.add(fiche.suggestion);
+            }
+        }
+        return suggestions;
+    }
+
+    private static boolean correspond(Fiche fiche, String[] mots) {
+        for (String saisi : mots) {
+            boolean trouve = false;
+            for (String mot : fiche.mots) {
+                if (mot.startsWith(saisi)) {
+                    trouve = true;
+                    break;
+                }
+            }
+            if (!trouve) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rend obsolètes les clés d'une ancienne version du patient
+     */
+    private void oublier(Fiche ancienne) {
+        Long id = ancienne.suggestion.getId();
+        etat.perimes.add(id);
+        for (String mot : ancienne.mots) {
+            etat.ajouts.remove(new Cle(mot, id));
+        }
+    }
+
+    private void fusionnerSiNecessaire() {
+        Etat courant = etat;
+        // Seuil proportionnel à la taille du tableau : le coût des fusions reste
+        // amorti quand de nombreux patients sont indexés à la suite
+        if (courant.ajouts.size() + courant.perimes.size() < Math.max(SEUIL_FUSION, courant.mots.length / 8)) {
+            return;
+        }
+        List<Cle> cles = new ArrayList<>(courant.mots.length + courant.ajouts.size());
+        for (int i = 0; i < courant.mots.length; i++) {
+            if (!courant.perimes.contains(courant.ids[i])) {
+                cles.add(new Cle(courant.mots[i], courant.ids[i]));
+            }
+        }
+        cles.addAll(courant.ajouts);
+        etat = construire(cles);
+        log.debug("Index de saisie des patients fusionné: {} clés", cles.size());
+    }
+
+    private static Etat construire(List<Cle> cles) {
+        cles.sort(ORDRE);
+        String[] mots = new String[cles.size()];
+        long[] ids = new long[cles.size()];
+        for (int i = 0; i < mots.length; i++) {
+            mots[i] = cles.get(i).mot;
+            ids[i] = cles.get(i).id;
+        }
+        return new Etat(mots, ids);
+    }
+
+    private static Fiche fiche(Long id, String nom, String prenom, String numeroSecuriteSociale) {
+        Set<String> mots = new LinkedHashSet<>();
+        mots.addAll(Arrays.asList(mots(NormalisationTexte.normaliser(nom))));
+        mots.addAll(Arrays.asList(mots(NormalisationTexte.normaliser(prenom))));
+        String nss = NormalisationTexte.normaliser(numeroSecuriteSociale).replace(" ", "");
+        if (!nss.isEmpty()) {
+            mots.add(nss);
+        }
+        return new Fiche(new PatientSuggestionDTO(id, nom, prenom, PatientSuggestionDTO.masquerNss(numeroSecuriteSociale)),
+                         mots.toArray(new String[0]));
+    }
+
+    private static String[] mots(String texte) {
+        return texte.isEmpty() ? new String[0] : texte.split(" ");
+    }
+
+    private record Cle(String mot, long id) {
+    }
+
+    private record Fiche(PatientSuggestionDTO suggestion, String[] mots) {
+    }
+
+    /**
+     * Version publiée de l'index : tableau trié immuable, plus les ajouts et
+     * identifiants périmés accumulés depuis sa construction
+     */
+    private static final class Etat {
+        private final String[] mots;
+        private final long[] ids;
+        private final NavigableSet<Cle> ajouts = new ConcurrentSkipListSet<>(ORDRE);
+        private final Set<Long> perimes = ConcurrentHashMap.newKeySet();
+
+        private Etat(String[] mots, long[] ids) {
+            this.mots = mots;
+            this.ids = ids;
+        }
+
+        /**
+         * Position de la première clé supérieure ou égale au préfixe
+         */
+        private int debut(String prefixe) {
+            int bas = 0;
+            int haut = mots.length;
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                if (mots[milieu].compareTo(prefixe) < 0) {
+                    bas = milieu + 1;
+                } else {
+                    haut = milieu;
+                }
+            }
+            return bas;
+        }
+
+        private int comparer(int position, Cle cle) {
+            int resultat = mots[position].compareTo(cle.mot);
+            return resultat != 0 ? resultat : Long.compare(ids[position], cle.id);
+        }
+    }
+
+    /**
+     * Recherche abandonnée car remplacée par une saisie plus récente
+     */
+    public static class RechercheAnnuleeException extends RuntimeException {
+        public RechercheAnnuleeException() {
+            super("Recherche remplacée par une saisie plus récente");
+        }
+    }
+}
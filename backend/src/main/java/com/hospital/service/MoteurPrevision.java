@@ -0,0 +1,82 @@
+package com.hospital.service;
+
+/**
+ * Algorithmes de prévision sur tableaux primitifs.
+ * Chaque méthode travaille sur la plage [debut, fin) d'un tableau de montants
+ * mensuels triés, ce qui permet de calculer plusieurs méthodes sur des
+ * fenêtres différentes d'une même série sans recopier les données.
+ */
+public final class MoteurPrevision {
+
+    private MoteurPrevision() {
+    }
+
+    /**
+     * Moyenne simple des {@code periode} dernières valeurs de la plage.
+     * Retourne NaN si la plage contient moins de {@code periode} valeurs.
+     */
+    public static double moyenneMobile(double[] valeurs, int debut, int fin, int periode) {
+        if (periode <= 0 || fin - debut < periode) {
+            return Double.NaN;
+        }
+        double somme = 0.0;
+        for (int i = fin - periode; i < fin; i++) {
+            somme += valeurs[i];
+        }
+        return somme / periode;
+    }
+
+    /**
+     * Moyenne pondérée des {@code periode} dernières valeurs de la plage,
+     * la plus récente ayant le poids le plus fort (1, 2, ..., periode).
+     * Retourne NaN si la plage contient moins de {@code periode} valeurs.
+     */
+    public static double moyenneMobilePonderee(double[] valeurs, int debut, int fin, int periode) {
+        if (periode <= 0 || fin - debut < periode) {
+            return Double.NaN;
+        }
+        double sommePonderee = 0.0;
+        double sommePoids = 0.0;
+        int premier = fin - periode;
+        for (int i = premier; i < fin; i++) {
+            double poids = i - premier + 1;
+            sommePonderee += valeurs[i] * poids;
+            sommePoids += poids;
+        }
+        return sommePonderee / sommePoids;
+    }
+
+    /**
+     * Régression linéaire y = a * x + b sur la plage, x valant 0 pour la première valeur.
+     *
+     * @return {a, b}
+     */
+    public static double[] regressionLineaire(double[] valeurs, int debut, int fin) {
+        int n = fin - debut;
+        double sumX = 0, sumY = 0, sumXY = 0, sumX2 = 0;
+        for (int i = 0; i < n; i++) {
+            double x = i;
+            double y = valeurs[debut + i];
+            sumX += x;
+            sumY += y;
+            sumXY += x * y;
+            sumX2 += x * x;
+        }
+        double a = (n * sumXY - sumX * sumY) / (n * sumX2 - sumX * sumX);
+        double b = (sumY - a * sumX) / n;
+        return new double[] {a, b};
+    }
+
+    /**
+     * Variation en pourcentage entre les deux dernières valeurs de la plage.
+     * Retourne NaN si la plage contient moins de deux valeurs.
+     */
+    public static double variation(double[] valeurs, int debut, int fin) {
+        if (fin - debut < 2) {
+            return Double.NaN;
+        }
+        double dernier = valeurs[fin - 1];
+        double avantDernier = valeurs[fin - 2];
+        return ((dernier - avantDernier) / avantDernier) * 100;
+    }
+}
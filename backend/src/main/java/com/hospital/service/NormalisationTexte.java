@@ -0,0 +1,52 @@
+package com.hospital.service;
+
+import java.text.Normalizer;
+import java.util.regex.Pattern;
+
+/**
+ * Normalisation des textes pour la recherche : accents supprimés, minuscules,
+ * tout caractère non alphanumérique remplacé par un espace unique.
+ * « Lefèvre-Dupont » devient « lefevre dupont ».
+ */
+public final class NormalisationTexte {
+
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+
+    private NormalisationTexte() {
+    }
+
+    public static String normaliser(String texte) {
+        if (texte == null || texte.isEmpty()) {
+            return "";
+        }
+        String sansAccents = estAscii(texte)
+            ? texte
+            : DIACRITIQUES.matcher(Normalizer.normalize(texte, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder resultat = new StringBuilder(sansAccents.length());
+        boolean espace = true;
+        for (int i = 0; i < sansAccents.length(); i++) {
+            char c = sansAccents.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                resultat.append(Character.toLowerCase(c));
+                espace = false;
+            } else if (!espace) {
+                resultat.append(' ');
+                espace = true;
+            }
+        }
+        int fin = resultat.length();
+        if (fin > 0 && resultat.charAt(fin - 1) == ' ') {
+            resultat.setLength(fin - 1);
+        }
+        return resultat.toString();
+    }
+
+    private static boolean estAscii(String texte) {
+        for (int i = 0; i < texte.length(); i++) {
+            if (texte.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package com.hospital.service;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Parcours d'un flux d'entités issu d'une requête Stream du repository.
+ * Le contexte de persistance est vidé tous les {@link #TAILLE_LOT} éléments
+ * pour que la mémoire utilisée reste constante quelle que soit la taille du
+ * résultat. À appeler dans une transaction en lecture seule.
+ */
+final class ParcoursFlux {
+
+    static final int TAILLE_LOT = 500;
+
+    private ParcoursFlux() {
+    }
+
+    static <T> long parcourir(Stream<T> flux, EntityManager entityManager, Consumer<T> consommateur) {
+        long nombre = 0;
+        try (flux) {
+            var iterateur = flux.iterator();
+            while (iterateur.hasNext()) {
+                consommateur.accept(iterateur.next());
+                if (++nombre % TAILLE_LOT == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return nombre;
+    }
+}
@@ -1,13 +1,22 @@
 package com.hospital.service;
 
+import com.hospital.dto.PageCurseur;
+import com.hospital.dto.PatientSuggestionDTO;
 import com.hospital.model.Patient;
 import com.hospital.repository.PatientRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -15,17 +24,43 @@ import java.util.Optional;
 public class PatientService {
 
     private final PatientRepository patientRepository;
+    private final EntityManager entityManager;
+    private final IndexRecherchePatients indexRecherchePatients;
+    private final IndexSaisiePatients indexSaisiePatients;
 
     public List<Patient> getAllPatients() {
         return patientRepository.findAll();
     }
 
+    /**
+     * Page de patients après le curseur (identifiant), triée par identifiant
+     */
+    @Transactional(readOnly = true)
+    public PageCurseur<Patient> getPatientsPage(Long apres, int taille) {
+        List<Patient> lignes = patientRepository.findByIdGreaterThanOrderByIdAsc(
+            apres != null ? apres : 0L, Limit.of(taille + 1));
+        return PageCurseur.depuis(lignes, taille, Patient::getId);
+    }
+
+    /**
+     * Transmet tous les patients un par un, sans les charger tous en mémoire
+     */
+    @Transactional(readOnly = true)
+    public long exporterPatients(Consumer<Patient> consommateur) {
+        return ParcoursFlux.parcourir(patientRepository.streamAll(), entityManager, consommateur);
+    }
+
     public Optional<Patient> getPatientById(Long id) {
         return patientRepository.findById(id);
     }
 
     public Patient createPatient(Patient patient) {
-        return patientRepository.save(patient);
+        Patient cree = patientRepository.save(patient);
+        ApresCommit.executer(() -> {
+            indexRecherchePatients.indexer(cree);
+            indexSaisiePatients.indexer(cree);
+        });
+        return cree;
     }
 
     public Patient updatePatient(Long id, Patient patientDetails) {
@@ -38,14 +73,66 @@ public class PatientService {
         patient.setNumeroSecuriteSociale(patientDetails.getNumeroSecuriteSociale());
         patient.setCoutTotal(patientDetails.getCoutTotal());
 
-        return patientRepository.save(patient);
+        Patient modifie = patientRepository.save(patient);
+        ApresCommit.executer(() -> {
+            indexRecherchePatients.indexer(modifie);
+            indexSaisiePatients.indexer(modifie);
+        });
+        return modifie;
     }
 
     public void deletePatient(Long id) {
         patientRepository.deleteById(id);
+        ApresCommit.executer(() -> {
+            indexRecherchePatients.retirer(id);
+            indexSaisiePatients.retirer(id);
+        });
+    }
+
+    /**
+     * Recherche les patients par nom, prénom ou NSS via l'index en mémoire,
+     * classés par pertinence. Tant que l'index n'est pas chargé (démarrage),
+     * la recherche passe par la requête LIKE.
+     */
+    @Transactional(readOnly = true)
+    public List<Patient> searchPatients(String searchTerm, int limite) {
+        if (!indexRecherchePatients.estPret()) {
+            return patientRepository.searchPatients(searchTerm).stream().limit(limite).toList();
+        }
+        List<Long> ids = indexRecherchePatients.rechercher(searchTerm, limite);
+        Map<Long, Patient> parId = new HashMap<>();
+        for (Patient patient : patientRepository.findAllById(ids)) {
+            parId.put(patient.getId(), patient);
+        }
+        List<Patient> resultats = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Patient patient = parId.get(id);
+            if (patient != null) {
+                resultats.add(patient);
+            }
+        }
+        return resultats;
     }
 
-    public List<Patient> searchPatients(String searchTerm) {
-        return patientRepository.searchPatients(searchTerm);
+    /**
+     * Suggestions de saisie semi-automatique : au plus {@code limite} patients
+     * dont un mot commence par chacun des mots saisis. Tant que l'index n'est
+     * pas chargé (démarrage), les suggestions passent par la requête LIKE.
+     *
+     * @throws IndexSaisiePatients.RechercheAnnuleeException si la saisie a été remplacée entre-temps
+     */
+    @Transactional(readOnly = true)
+    public List<PatientSuggestionDTO> suggererPatients(String saisie, int limite, BooleanSupplier annulee) {
+        if (annulee.getAsBoolean()) {
+            throw new IndexSaisiePatients.RechercheAnnuleeException();
+        }
+        if (!indexSaisiePatients.estPret()) {
+            return patientRepository.searchPatients(saisie).stream()
+                .limit(limite)
+                .map(p -> new PatientSuggestionDTO(p.getId(), p.getNom(), p.getPrenom(),
+                                                   PatientSuggestionDTO.masquerNss(p.getNumeroSecuriteSociale())))
+                .toList();
+        }
+        return indexSaisiePatients.suggerer(saisie, limite, annulee);
     }
 }
@@ -0,0 +1,533 @@
+package com.hospital.service;
+
+import com.hospital.dto.CreneauLibreDTO;
+import com.hospital.model.RendezVous;
+import com.hospital.repository.RendezVousRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index en mémoire de l'occupation du planning des rendez-vous, par journée.
+ *
+ * Les rendez-vous ne sont rattachés à aucun praticien ni salle : la seule
+ * ressource connue est le patient. Un créneau est en conflit si le patient a
+ * déjà un rendez-vous qui le chevauche. Une capacité globale (nombre de
+ * rendez-vous simultanés dans tout l'hôpital) peut être activée avec
+ * {@code rendezvous.planning.capacite} ; elle vaut 0 par défaut (illimitée).
+ *
+ * Chaque journée chargée tient ses créneaux par rendez-vous et, pour la
+ * capacité globale, le nombre de rendez-vous en cours à chaque minute : la
+ * détection de conflit ne parcourt que les minutes du créneau demandé et les
+ * rendez-vous du jour, et la recherche de créneaux libres ne lit pas la base.
+ *
+ * Une journée est chargée à la première demande (une requête, sans les
+ * patients). Un créneau accepté est retenu immédiatement, pour que deux
+ * réservations concurrentes ne puissent pas obtenir la même place, puis
+ * attribué au rendez-vous après validation de la transaction, ou libéré si
+ * elle est annulée. Les journées passées sont oubliées chaque nuit.
+ *
+ * Au plus {@code rendezvous.planning.jours-max} journées sont gardées : au-delà,
+ * une recherche de créneaux lit la journée sans la garder, et une réservation
+ * (qui a besoin de la journée gardée pour retenir son créneau) fait oublier les
+ * journées les plus éloignées d'aujourd'hui sans réservation en cours.
+ */
+@Component
+@Slf4j
+public class PlanningRendezVous {
+
+    private static final int MINUTES_PAR_JOUR = 24 * 60;
+    private static final int DUREE_MIN = 5;
+    private static final int DUREE_MAX = 12 * 60;
+
+    private final RendezVousRepository rendezVousRepository;
+    private final int capacite;
+    private final int dureeDefaut;
+    private final LocalTime ouverture;
+    private final LocalTime fermeture;
+    private final int pasMinutes;
+    private final int joursMax;
+
+    private final Map<LocalDate, Journee> journees = new ConcurrentHashMap<>();
+
+    public PlanningRendezVous(RendezVousRepository rendezVousRepository,
+                              @Value("${rendezvous.planning.capacite:0}") int capacite,
+                              @Value("${rendezvous.planning.duree-defaut:30}") int dureeDefaut,
+                              @Value("${rendezvous.planning.ouverture:08:00}") String ouverture,
+                              @Value("${rendezvous.planning.fermeture:18:00}") String fermeture,
+                              @Value("${rendezvous.planning.pas-minutes:15}") int pasMinutes,
+                              @Value("${rendezvous.planning.jours-max:400}") int joursMax) {
+        this.rendezVousRepository = rendezVousRepository;
+        this.capacite = capacite;
+        this.dureeDefaut = dureeDefaut;
+        this.ouverture = LocalTime.parse(ouverture);
+        this.fermeture = LocalTime.parse(fermeture);
+        this.pasMinutes = pasMinutes;
+        this.joursMax = joursMax;
+    }
+
+    /**
+     * Durée effective d'un rendez-vous (durée par défaut si absente)
+     */
+    public int duree(Integer dureeMinutes) {
+        return dureeMinutes != null ? dureeMinutes : dureeDefaut;
+    }
+
+    /**
+     * Indique si un rendez-vous de ce statut occupe son créneau
+     */
+    public static boolean occupe(RendezVous.StatutRendezVous statut) {
+        return statut == null || statut.occupeCreneau();
+    }
+
+    /**
+     * Vérifie la durée et l'horaire d'un rendez-vous
+     *
+     * @throws IllegalArgumentException si la durée est hors limites ou si le rendez-vous dépasse minuit
+     */
+    public void valider(LocalDateTime debut, int dureeMinutes) {
+        if (debut == null) {
+            throw new IllegalArgumentException("La date du rendez-vous est obligatoire");
+        }
+        if (dureeMinutes < DUREE_MIN || dureeMinutes > DUREE_MAX) {
+            throw new IllegalArgumentException(
+                "La durée d'un rendez-vous doit être comprise entre " + DUREE_MIN + " et " + DUREE_MAX + " minutes");
+        }
+        if (minute(debut) + dureeMinutes > MINUTES_PAR_JOUR) {
+            throw new IllegalArgumentException("Un rendez-vous ne peut pas se terminer après minuit");
+        }
+    }
+
+    /**
+     * Retient un créneau s'il est libre. Le créneau est libéré si la
+     * transaction courante est annulée.
+     *
+     * @param patientId Patient du rendez-vous (null : seule la capacité globale est vérifiée)
+     * @param ignorer Rendez-vous à ne pas compter (rendez-vous déplacé), ou null
+     * @throws ConflitRendezVousException si le créneau est occupé
+     */
+    public Reservation reserver(LocalDateTime debut, int dureeMinutes, Long patientId, Long ignorer) {
+        valider(debut, dureeMinutes);
+        Reservation reservation = new Reservation(debut.toLocalDate(), minute(debut), minute(debut) + dureeMinutes,
+                                                  patientId);
+        String conflit = retenir(reservation, ignorer);
+        if (conflit != null) {
+            throw new ConflitRendezVousException(conflit);
+        }
+        ApresCommit.siAnnulee(() -> liberer(reservation));
+        return reservation;
+    }
+
+    /**
+     * Retient en une passe les créneaux de toutes les occurrences d'une série :
+     * chaque occurrence libre est retenue (libérée si la transaction est
+     * annulée), chaque occurrence occupée est signalée sans interrompre la
+     * vérification des suivantes
+     *
+     * @throws IllegalArgumentException si la durée ou l'horaire est invalide
+     */
+    public ReservationsSerie reserverSerie(List<LocalDateTime> debuts, int dureeMinutes, Long patientId) {
+        List<Reservation> reservations = new ArrayList<>(debuts.size());
+        Map<Integer, String> conflits = new LinkedHashMap<>();
+        List<Reservation> retenues = new ArrayList<>(debuts.size());
+        for (int i = 0; i < debuts.size(); i++) {
+            LocalDateTime debut = debuts.get(i);
+            valider(debut, dureeMinutes);
+            Reservation reservation = new Reservation(debut.toLocalDate(), minute(debut), minute(debut) + dureeMinutes,
+                                                      patientId);
+            String conflit = retenir(reservation, null);
+            if (conflit != null) {
+                conflits.put(i, conflit);
+                reservations.add(null);
+            } else {
+                retenues.add(reservation);
+                reservations.add(reservation);
+            }
+        }
+        if (!retenues.isEmpty()) {
+            ApresCommit.siAnnulee(() -> retenues.forEach(this::liberer));
+        }
+        return new ReservationsSerie(reservations, conflits);
+    }
+
+    /**
+     * Après validation de la transaction : retire le rendez-vous de son ancien
+     * créneau et lui attribue le créneau retenu
+     *
+     * @param jourPrecedent Jour de l'ancien créneau (null si le rendez-vous n'en occupait pas)
+     * @param reservation Nouveau créneau retenu (null si le rendez-vous n'en occupe plus)
+     */
+    public void remplacerApresCommit(Long id, LocalDate jourPrecedent, Reservation reservation) {
+        ApresCommit.executer(() -> {
+            Journee precedente = jourPrecedent != null ? journees.get(jourPrecedent) : null;
+            if (precedente != null) {
+                synchronized (precedente) {
+                    precedente.retirer(id);
+                }
+            }
+            Journee journee = reservation != null ? journees.get(reservation.jour) : null;
+            if (journee != null) {
+                synchronized (journee) {
+                    journee.retirer(reservation);
+                    journee.placer(id, reservation.debut, reservation.fin, reservation.patientId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Créneaux libres de la durée demandée, du jour {@code du} au jour {@code au},
+     * entre les heures données (heures d'ouverture par défaut), par pas réguliers
+     *
+     * @param patientId Patient dont les rendez-vous sont exclus des créneaux, ou null
+     */
+    public List<CreneauLibreDTO> trouverCreneauxLibres(LocalDate du, LocalDate au, LocalTime debut, LocalTime fin,
+                                                      int dureeMinutes, int limite, Long patientId) {
+        int premiere = minute(debut != null ? debut : ouverture);
+        int derniere = fin != null ? minute(fin) : minute(fermeture);
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        List<CreneauLibreDTO> creneaux = new ArrayList<>();
+        for (LocalDate jour = du; !jour.isAfter(au) && creneaux.size() < limite; jour = jour.plusDays(1)) {
+            int[] pleines;
+            Journee journee = journeeLue(jour);
+            synchronized (journee) {
+                pleines = journee.cumulMinutesPleines(capacite, patientId);
+            }
+            for (int m = premiere; m + dureeMinutes <= derniere && creneaux.size() < limite; m += pasMinutes) {
+                LocalDateTime debutCreneau = jour.atStartOfDay().plusMinutes(m);
+                if (pleines[m + dureeMinutes] == pleines[m] && debutCreneau.isAfter(maintenant)) {
+                    creneaux.add(new CreneauLibreDTO(debutCreneau, debutCreneau.plusMinutes(dureeMinutes)));
+                }
+            }
+        }
+        return creneaux;
+    }
+
+    /**
+     * Oublie les journées passées (rechargées à la demande si besoin)
+     */
+    @Scheduled(cron = "${rendezvous.planning.purge-cron:0 5 0 * * *}")
+    public void purger() {
+        LocalDate aujourdHui = LocalDate.now();
+        for (LocalDate jour : List.copyOf(journees.keySet())) {
+            if (jour.isBefore(aujourdHui)) {
+                oublier(jour);
+            }
+        }
+        limiter(null);
+    }
+
+    /**
+     * Place la réservation si le créneau est libre
+     *
+     * @return Motif du conflit, ou null si le créneau a été retenu
+     */
+    private String retenir(Reservation reservation, Long ignorer) {
+        while (true) {
+            Journee journee = journee(reservation.jour);
+            synchronized (journee) {
+                if (journee.oubliee) {
+                    // Oubliée entre sa lecture et le verrou : la réservation doit aller dans la journée gardée
+                    continue;
+                }
+                Object dejaPris = journee.rendezVousDuPatient(reservation.patientId, reservation.debut, reservation.fin,
+                                                              ignorer);
+                if (dejaPris != null) {
+                    return String.format(
+                        "Le patient a déjà un rendez-vous le %s à %s%s", reservation.jour,
+                        LocalTime.ofSecondOfDay(journee.creneaux.get(dejaPris).debut() * 60L),
+                        dejaPris instanceof Long id ? " (rendez-vous #" + id + ")" : "");
+                }
+                int minute = journee.premiereMinutePleine(reservation.debut, reservation.fin, ignorer, capacite);
+                if (minute >= 0) {
+                    Long occupant = journee.occupant(minute, ignorer);
+                    return String.format(
+                        "Créneau indisponible le %s à %s%s", reservation.jour, LocalTime.ofSecondOfDay(minute * 60L),
+                        occupant != null ? " (rendez-vous #" + occupant + ")" : "");
+                }
+                journee.placer(reservation, reservation.debut, reservation.fin, reservation.patientId);
+                return null;
+            }
+        }
+    }
+
+    private void liberer(Reservation reservation) {
+        Journee journee = journees.get(reservation.jour);
+        if (journee != null) {
+            synchronized (journee) {
+                journee.retirer(reservation);
+            }
+        }
+    }
+
+    /**
+     * Journée gardée du planning, chargée depuis la base à la première demande.
+     *
+     * La journée vide est publiée avant son chargement, qui se fait sous le
+     * verrou de la journée et non dans la map : les mises à jour validées
+     * pendant le chargement attendent sa fin puis s'appliquent (elles sont
+     * idempotentes), les autres journées restent accessibles.
+     */
+    private Journee journee(LocalDate jour) {
+        Journee journee = journees.get(jour);
+        if (journee == null) {
+            Journee nouvelle = new Journee();
+            journee = journees.putIfAbsent(jour, nouvelle);
+            if (journee == null) {
+                journee = nouvelle;
+                limiter(jour);
+            }
+        }
+        synchronized (journee) {
+            if (!journee.chargee) {
+                charger(jour, journee);
+            }
+        }
+        return journee;
+    }
+
+    /**
+     * Journée pour une recherche : la journée gardée, ou si le planning est
+     * plein une journée lue depuis la base sans être gardée
+     */
+    private Journee journeeLue(LocalDate jour) {
+        if (journees.containsKey(jour) || journees.size() < joursMax) {
+            return journee(jour);
+        }
+        Journee journee = new Journee();
+        charger(jour, journee);
+        return journee;
+    }
+
+    private void charger(LocalDate jour, Journee journee) {
+        for (Object[] ligne : rendezVousRepository.findCreneaux(jour.atStartOfDay(), jour.plusDays(1).atStartOfDay())) {
+            if (occupe((RendezVous.StatutRendezVous) ligne[3])) {
+                int debut = minute((LocalDateTime) ligne[1]);
+                int fin = Math.min(MINUTES_PAR_JOUR, debut + duree((Integer) ligne[2]));
+                journee.placer(ligne[0], debut, fin, (Long) ligne[4]);
+            }
+        }
+        journee.chargee = true;
+        log.debug("Planning du {} chargé: {} rendez-vous", jour, journee.creneaux.size());
+    }
+
+    /**
+     * Au-delà de {@code jours-max} journées, oublie les plus éloignées
+     * d'aujourd'hui, hors journée demandée et journées avec une réservation en cours
+     */
+    private void limiter(LocalDate garder) {
+        if (journees.size() <= joursMax) {
+            return;
+        }
+        LocalDate aujourdHui = LocalDate.now();
+        List<LocalDate> jours = new ArrayList<>(journees.keySet());
+        jours.sort(Comparator.comparingLong((LocalDate jour) -> Math.abs(ChronoUnit.DAYS.between(aujourdHui, jour)))
+                             .reversed());
+        for (LocalDate jour : jours) {
+            if (journees.size() <= joursMax) {
+                break;
+            }
+            if (!jour.equals(garder)) {
+                oublier(jour);
+            }
+        }
+    }
+
+    /**
+     * Oublie une journée sans réservation en cours (rechargée à la demande si besoin)
+     */
+    private void oublier(LocalDate jour) {
+        Journee journee = journees.get(jour);
+        if (journee == null) {
+            return;
+        }
+        synchronized (journee) {
+            if (!journee.reservationEnCours()) {
+                journee.oubliee = true;
+                journees.remove(jour, journee);
+            }
+        }
+    }
+
+    private static int minute(LocalDateTime dateHeure) {
+        return minute(dateHeure.toLocalTime());
+    }
+
+    private static int minute(LocalTime heure) {
+        return heure.getHour() * 60 + heure.getMinute();
+    }
+
+    /**
+     * Créneau retenu pour un rendez-vous pas encore validé (comparé par identité)
+     */
+    public static final class Reservation {
+
+        private final LocalDate jour;
+        private final int debut;
+        private final int fin;
+        private final Long patientId;
+
+        private Reservation(LocalDate jour, int debut, int fin, Long patientId) {
+            this.jour = jour;
+            this.debut = debut;
+            this.fin = fin;
+            this.patientId = patientId;
+        }
+    }
+
+    /**
+     * Créneaux retenus pour une série : une réservation par occurrence (null si
+     * l'occurrence est en conflit), et motif du conflit par indice d'occurrence
+     */
+    public record ReservationsSerie(List<Reservation> reservations, Map<Integer, String> conflits) {
+    }
+
+    /**
+     * Occupation d'une journée (accès sous son verrou)
+     */
+    private static final class Journee {
+
+        // Nombre de rendez-vous en cours à chaque minute (capacité globale)
+        private final short[] occupation = new short[MINUTES_PAR_JOUR];
+        // Identifiant du rendez-vous (ou réservation en cours) -> créneau
+        private final Map<Object, Creneau> creneaux = new HashMap<>();
+        private boolean chargee;
+        // Retirée du planning : une réservation doit relire la journée gardée
+        private boolean oubliee;
+
+        private boolean reservationEnCours() {
+            for (Object cle : creneaux.keySet()) {
+                if (cle instanceof Reservation) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void placer(Object cle, int debut, int fin, Long patientId) {
+            retirer(cle);
+            creneaux.put(cle, new Creneau(debut, fin, patientId));
+            for (int m = debut; m < fin; m++) {
+                occupation[m]++;
+            }
+        }
+
+        private void retirer(Object cle) {
+            Creneau creneau = creneaux.remove(cle);
+            if (creneau != null) {
+                for (int m = creneau.debut(); m < creneau.fin(); m++) {
+                    occupation[m]--;
+                }
+            }
+        }
+
+        /**
+         * Rendez-vous (ou réservation en cours) du patient qui chevauche [debut, fin), ou null
+         */
+        private Object rendezVousDuPatient(Long patientId, int debut, int fin, Long ignorer) {
+            if (patientId == null) {
+                return null;
+            }
+            for (Map.Entry<Object, Creneau> entree : creneaux.entrySet()) {
+                Creneau creneau = entree.getValue();
+                if (patientId.equals(creneau.patientId()) && !entree.getKey().equals(ignorer)
+                        && creneau.debut() < fin && debut < creneau.fin()) {
+                    return entree.getKey();
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Première minute de [debut, fin) où la capacité globale est atteinte,
+         * ou -1 (toujours -1 si la capacité est illimitée)
+         */
+        private int premiereMinutePleine(int debut, int fin, Long ignorer, int capacite) {
+            if (capacite <= 0) {
+                return -1;
+            }
+            Creneau ignore = ignorer != null ? creneaux.get(ignorer) : null;
+            for (int m = debut; m < fin; m++) {
+                int nombre = occupation[m];
+                if (ignore != null && m >= ignore.debut() && m < ignore.fin()) {
+                    nombre--;
+                }
+                if (nombre >= capacite) {
+                    return m;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Un rendez-vous validé en cours à cette minute (pour le message de conflit)
+         */
+        private Long occupant(int minute, Long ignorer) {
+            for (Map.Entry<Object, Creneau> entree : creneaux.entrySet()) {
+                Creneau creneau = entree.getValue();
+                if (entree.getKey() instanceof Long id && !id.equals(ignorer)
+                        && minute >= creneau.debut() && minute < creneau.fin()) {
+                    return id;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Cumul des minutes pleines : cumul[m] = nombre de minutes pleines avant
+         * la minute m. Une minute est pleine si la capacité globale est atteinte
+         * ou si le patient (s'il est donné) a déjà un rendez-vous.
+         */
+        private int[] cumulMinutesPleines(int capacite, Long patientId) {
+            boolean[] pleines = new boolean[MINUTES_PAR_JOUR];
+            if (capacite > 0) {
+                for (int m = 0; m < MINUTES_PAR_JOUR; m++) {
+                    pleines[m] = occupation[m] >= capacite;
+                }
+            }
+            if (patientId != null) {
+                for (Creneau creneau : creneaux.values()) {
+                    if (patientId.equals(creneau.patientId())) {
+                        for (int m = creneau.debut(); m < creneau.fin(); m++) {
+                            pleines[m] = true;
+                        }
+                    }
+                }
+            }
+            int[] cumul = new int[MINUTES_PAR_JOUR + 1];
+            for (int m = 0; m < MINUTES_PAR_JOUR; m++) {
+                cumul[m + 1] = cumul[m] + (pleines[m] ? 1 : 0);
+            }
+            return cumul;
+        }
+    }
+
+    /**
+     * Créneau d'un rendez-vous dans sa journée, en minutes [debut, fin)
+     */
+    private record Creneau(int debut, int fin, Long patientId) {
+    }
+
+    /**
+     * Créneau demandé déjà occupé
+     */
+    public static class ConflitRendezVousException extends RuntimeException {
+        public ConflitRendezVousException(String message) {
+            super(message);
+        }
+    }
+}
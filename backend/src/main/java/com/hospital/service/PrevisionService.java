@@ -1,15 +1,18 @@
 package com.hospital.service;
 
-import com.hospital.model.HistoriqueDepense;
-import com.hospital.repository.HistoriqueDepenseRepository;
 import com.hospital.repository.BudgetServiceRepository;
+import com.hospital.repository.DepenseMensuelleRepository;
+import com.hospital.repository.ServiceRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -17,18 +20,34 @@ import java.util.stream.Collectors;
 /**
  * Service métier pour les prévisions financières.
  * Implémente les algorithmes d'anticipation : moyenne mobile, tendance, simulation.
+ * Les calculs sont délégués à {@link MoteurPrevision} sur la série mensuelle du service,
+ * et les résultats sont conservés dans {@link CachePrevisions}.
+ * Pas de transaction propre : un résultat servi par le cache ne mobilise aucune connexion.
  */
 @Service
 @RequiredArgsConstructor
-@Transactional(readOnly = true)
+@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
 public class PrevisionService {
 
-    private final HistoriqueDepenseRepository historiqueDepenseRepository;
+    /**
+     * Profondeur d'historique utilisée par la régression linéaire
+     */
+    private static final int MOIS_HISTORIQUE_TENDANCE = 12;
+
+    /**
+     * Profondeur d'historique utilisée pour la tendance actuelle
+     */
+    private static final int MOIS_HISTORIQUE_VARIATION = 3;
+
+    private final DepenseMensuelleRepository depenseMensuelleRepository;
     private final BudgetServiceRepository budgetServiceRepository;
+    private final ServiceRepository serviceRepository;
+    private final ExecuteurPrevisions executeurPrevisions;
+    private final CachePrevisions cachePrevisions;
 
     /**
      * Prévision par moyenne mobile simple.
-     * 
+     *
      * @param serviceId ID du service
      * @param nombreMois Nombre de mois à prévoir
      * @param periodeMoyenne Nombre de périodes pour la moyenne (ex: 3 pour moyenne sur 3 mois)
@@ -36,52 +55,10 @@ public class PrevisionService {
      */
     public List<PrevisionResult> prevoirDepensesMoyenneMobile(
             Long serviceId, int nombreMois, int periodeMoyenne) {
-        
-        // Récupérer les dépenses historiques
-        LocalDate fin = LocalDate.now();
-        LocalDate debut = fin.minusMonths(periodeMoyenne + nombreMois);
-        
-        List<HistoriqueDepense> depenses = historiqueDepenseRepository
-            .findByServiceIdAndDateBetween(serviceId, debut, fin);
-        
-        // Grouper par mois
-        Map<YearMonth, Double> depensesParMois = depenses.stream()
-            .collect(Collectors.groupingBy(
-                d -> YearMonth.from(d.getDate()),
-                Collectors.summingDouble(d -> d.getMontant() != null ? d.getMontant() : 0.0)
-            ));
-        
-        List<PrevisionResult> previsions = new ArrayList<>();
-        
-        // Calculer la moyenne mobile
-        List<YearMonth> mois = depensesParMois.keySet().stream()
-            .sorted()
-            .collect(Collectors.toList());
-        
-        if (mois.size() < periodeMoyenne) {
-            // Pas assez de données historiques
-            return previsions;
-        }
-        
-        // Calculer la moyenne des N derniers mois
-        double moyenne = mois.stream()
-            .skip(mois.size() - periodeMoyenne)
-            .mapToDouble(depensesParMois::get)
-            .average()
-            .orElse(0.0);
-        
-        // Générer les prévisions
-        YearMonth dernierMois = mois.get(mois.size() - 1);
-        for (int i = 1; i <= nombreMois; i++) {
-            YearMonth moisPrevision = dernierMois.plusMonths(i);
-            previsions.add(new PrevisionResult(
-                moisPrevision.atDay(1),
-                moyenne,
-                "Moyenne mobile (" + periodeMoyenne + " mois)"
-            ));
-        }
-        
-        return previsions;
+        return cachePrevisions.obtenir(serviceId, "moyenne-mobile", () -> {
+            SerieMensuelle serie = chargerSerie(serviceId, debutFenetre(periodeMoyenne + nombreMois));
+            return Collections.unmodifiableList(moyenneMobile(serie, 0, nombreMois, periodeMoyenne));
+        }, nombreMois, periodeMoyenne);
     }
 
     /**
@@ -90,57 +67,10 @@ public class PrevisionService {
      */
     public List<PrevisionResult> prevoirDepensesMoyenneMobilePonderee(
             Long serviceId, int nombreMois, int periodeMoyenne) {
-        
-        LocalDate fin = LocalDate.now();
-        LocalDate debut = fin.minusMonths(periodeMoyenne + nombreMois);
-        
-        List<HistoriqueDepense> depenses = historiqueDepenseRepository
-            .findByServiceIdAndDateBetween(serviceId, debut, fin);
-        
-        Map<YearMonth, Double> depensesParMois = depenses.stream()
-            .collect(Collectors.groupingBy(
-                d -> YearMonth.from(d.getDate()),
-                Collectors.summingDouble(d -> d.getMontant() != null ? d.getMontant() : 0.0)
-            ));
-        
-        List<PrevisionResult> previsions = new ArrayList<>();
-        List<YearMonth> mois = depensesParMois.keySet().stream()
-            .sorted()
-            .collect(Collectors.toList());
-        
-        if (mois.size() < periodeMoyenne) {
-            return previsions;
-        }
-        
-        // Calculer la moyenne pondérée
-        double sommePonderee = 0.0;
-        double sommePoids = 0.0;
-        
-        List<YearMonth> derniersMois = mois.stream()
-            .skip(mois.size() - periodeMoyenne)
-            .collect(Collectors.toList());
-        
-        for (int i = 0; i < derniersMois.size(); i++) {
-            double poids = i + 1; // Plus récent = plus de poids
-            double montant = depensesParMois.get(derniersMois.get(i));
-            sommePonderee += montant * poids;
-            sommePoids += poids;
-        }
-        
-        double moyennePonderee = sommePoids > 0 ? sommePonderee / sommePoids : 0.0;
-        
-        // Générer les prévisions
-        YearMonth dernierMois = mois.get(mois.size() - 1);
-        for (int i = 1; i <= nombreMois; i++) {
-            YearMonth moisPrevision = dernierMois.plusMonths(i);
-            previsions.add(new PrevisionResult(
-                moisPrevision.atDay(1),
-                moyennePonderee,
-                "Moyenne mobile pondérée (" + periodeMoyenne + " mois)"
-            ));
-        }
-        
-        return previsions;
+        return cachePrevisions.obtenir(serviceId, "moyenne-mobile-ponderee", () -> {
+            SerieMensuelle serie = chargerSerie(serviceId, debutFenetre(periodeMoyenne + nombreMois));
+            return Collections.unmodifiableList(moyenneMobilePonderee(serie, 0, nombreMois, periodeMoyenne));
+        }, nombreMois, periodeMoyenne);
     }
 
     /**
@@ -149,95 +79,185 @@ public class PrevisionService {
      */
     public List<PrevisionResult> prevoirDepensesTendance(
             Long serviceId, int nombreMois) {
-        
+        return cachePrevisions.obtenir(serviceId, "tendance", () -> {
+            SerieMensuelle serie = chargerSerie(serviceId, debutFenetre(MOIS_HISTORIQUE_TENDANCE));
+            return Collections.unmodifiableList(tendance(serie, 0, nombreMois));
+        }, nombreMois);
+    }
+
+    /**
+     * Calcule la tendance des dépenses (hausse, baisse, stable)
+     */
+    public TendanceResult calculerTendance(Long serviceId) {
+        return cachePrevisions.obtenir(serviceId, "tendance-actuelle", () -> {
+            SerieMensuelle serie = chargerSerie(serviceId, debutFenetre(MOIS_HISTORIQUE_VARIATION));
+            return tendanceActuelle(serie, 0);
+        });
+    }
+
+    /**
+     * Calcule toutes les méthodes de prévision à partir d'un seul chargement
+     * de la série mensuelle du service. Chaque méthode conserve sa propre
+     * fenêtre d'historique, les résultats sont identiques aux appels séparés.
+     */
+    public PrevisionsCompletes prevoirToutesMethodes(
+            Long serviceId, int nombreMois, int periodeMoyenne) {
+        return cachePrevisions.obtenir(serviceId, "complete", () -> {
+            YearMonth debutMoyenne = debutFenetre(periodeMoyenne + nombreMois);
+            YearMonth debutTendance = debutFenetre(MOIS_HISTORIQUE_TENDANCE);
+
+            // La fenêtre de variation (3 mois) est incluse dans celle de la tendance
+            YearMonth debut = debutMoyenne.isBefore(debutTendance) ? debutMoyenne : debutTendance;
+            SerieMensuelle serie = chargerSerie(serviceId, debut);
+
+            return calculerToutesMethodes(serie, nombreMois, periodeMoyenne);
+        }, nombreMois, periodeMoyenne);
+    }
+
+    /**
+     * Prévisions de plusieurs services (ou de tous si {@code serviceIds} est null).
+     * Les séries de tous les services sont chargées par une seule requête groupée,
+     * puis les calculs sont répartis sur le pool de threads des prévisions.
+     */
+    public Map<Long, PrevisionsCompletes> prevoirPourServices(
+            List<Long> serviceIds, int nombreMois, int periodeMoyenne) {
+        List<Long> ids = serviceIds != null ? serviceIds : serviceRepository.findAllIds();
+        if (ids.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        YearMonth debutMoyenne = debutFenetre(periodeMoyenne + nombreMois);
+        YearMonth debutTendance = debutFenetre(MOIS_HISTORIQUE_TENDANCE);
+        LocalDate debut = (debutMoyenne.isBefore(debutTendance) ? debutMoyenne : debutTendance).atDay(1);
         LocalDate fin = LocalDate.now();
-        LocalDate debut = fin.minusMonths(12); // 12 mois d'historique
-        
-        List<HistoriqueDepense> depenses = historiqueDepenseRepository
-            .findByServiceIdAndDateBetween(serviceId, debut, fin);
-        
-        Map<YearMonth, Double> depensesParMois = depenses.stream()
-            .collect(Collectors.groupingBy(
-                d -> YearMonth.from(d.getDate()),
-                Collectors.summingDouble(d -> d.getMontant() != null ? d.getMontant() : 0.0)
-            ));
-        
-        List<YearMonth> mois = depensesParMois.keySet().stream()
-            .sorted()
+
+        List<Object[]> lignes = serviceIds != null
+            ? depenseMensuelleRepository.calculerTotauxMensuelsParService(ids, debut, fin)
+            : depenseMensuelleRepository.calculerTotauxMensuelsTousServices(debut, fin);
+        Map<Long, SerieMensuelle> series = SerieMensuelle.parService(lignes);
+
+        return executeurPrevisions.calculerEnParallele(ids, serviceId -> calculerToutesMethodes(
+            series.getOrDefault(serviceId, SerieMensuelle.vide()), nombreMois, periodeMoyenne));
+    }
+
+    /**
+     * Calcule toutes les méthodes de prévision sur une série déjà chargée,
+     * en appliquant à chacune sa fenêtre d'historique.
+     */
+    public PrevisionsCompletes calculerToutesMethodes(
+            SerieMensuelle serie, int nombreMois, int periodeMoyenne) {
+        int indiceMoyenne = serie.indiceDepuis(debutFenetre(periodeMoyenne + nombreMois));
+        int indiceTendance = serie.indiceDepuis(debutFenetre(MOIS_HISTORIQUE_TENDANCE));
+        int indiceVariation = serie.indiceDepuis(debutFenetre(MOIS_HISTORIQUE_VARIATION));
+
+        return new PrevisionsCompletes(
+            Collections.unmodifiableList(moyenneMobile(serie, indiceMoyenne, nombreMois, periodeMoyenne)),
+            Collections.unmodifiableList(moyenneMobilePonderee(serie, indiceMoyenne, nombreMois, periodeMoyenne)),
+            Collections.unmodifiableList(tendance(serie, indiceTendance, nombreMois)),
+            tendanceActuelle(serie, indiceVariation)
+        );
+    }
+
+    /**
+     * Statistiques du cache des prévisions
+     */
+    public Map<String, Object> getStatistiquesCache() {
+        return cachePrevisions.statistiques();
+    }
+
+    /**
+     * Vide le cache des prévisions
+     */
+    public void viderCache() {
+        cachePrevisions.invaliderTout();
+    }
+
+    /**
+     * Simule un scénario what-if
+     */
+    public List<PrevisionResult> simulerScenario(
+            Long serviceId, Map<String, Double> parametres) {
+
+        // Récupérer la prévision de base
+        List<PrevisionResult> previsionsBase = prevoirDepensesMoyenneMobile(
+            serviceId, 3, 3);
+
+        // Appliquer les paramètres de simulation
+        double facteurAugmentation = parametres.getOrDefault("facteurAugmentation", 1.0);
+        double variationPersonnel = parametres.getOrDefault("variationPersonnel", 0.0);
+        double variationMateriel = parametres.getOrDefault("variationMateriel", 0.0);
+
+        return previsionsBase.stream()
+            .map(p -> {
+                double nouveauMontant = p.montant * facteurAugmentation;
+                nouveauMontant += variationPersonnel + variationMateriel;
+                return new PrevisionResult(
+                    p.date,
+                    Math.max(0, nouveauMontant),
+                    "Simulation: " + p.methode
+                );
+            })
             .collect(Collectors.toList());
-        
-        if (mois.size() < 3) {
+    }
+
+    private List<PrevisionResult> moyenneMobile(
+            SerieMensuelle serie, int debut, int nombreMois, int periodeMoyenne) {
+        double moyenne = MoteurPrevision.moyenneMobile(
+            serie.montants(), debut, serie.taille(), periodeMoyenne);
+        if (Double.isNaN(moyenne)) {
+            // Pas assez de données historiques
             return new ArrayList<>();
         }
-        
-        // Calculer la régression linéaire y = ax + b
-        int n = mois.size();
-        double sumX = 0, sumY = 0, sumXY = 0, sumX2 = 0;
-        
-        for (int i = 0; i < n; i++) {
-            double x = i;
-            double y = depensesParMois.get(mois.get(i));
-            sumX += x;
-            sumY += y;
-            sumXY += x * y;
-            sumX2 += x * x;
+        return previsionsConstantes(serie, nombreMois, moyenne,
+            "Moyenne mobile (" + periodeMoyenne + " mois)");
+    }
+
+    private List<PrevisionResult> moyenneMobilePonderee(
+            SerieMensuelle serie, int debut, int nombreMois, int periodeMoyenne) {
+        double moyennePonderee = MoteurPrevision.moyenneMobilePonderee(
+            serie.montants(), debut, serie.taille(), periodeMoyenne);
+        if (Double.isNaN(moyennePonderee)) {
+            return new ArrayList<>();
         }
-        
-        // Calculer a (pente) et b (ordonnée à l'origine)
-        double a = (n * sumXY - sumX * sumY) / (n * sumX2 - sumX * sumX);
-        double b = (sumY - a * sumX) / n;
-        
-        // Générer les prévisions
+        return previsionsConstantes(serie, nombreMois, moyennePonderee,
+            "Moyenne mobile pondérée (" + periodeMoyenne + " mois)");
+    }
+
+    private List<PrevisionResult> tendance(SerieMensuelle serie, int debut, int nombreMois) {
+        int n = serie.taille() - debut;
+        if (n < 3) {
+            return new ArrayList<>();
+        }
+
+        // Régression linéaire y = ax + b
+        double[] droite = MoteurPrevision.regressionLineaire(serie.montants(), debut, serie.taille());
+        double a = droite[0];
+        double b = droite[1];
+
         List<PrevisionResult> previsions = new ArrayList<>();
-        YearMonth dernierMois = mois.get(mois.size() - 1);
-        
+        YearMonth dernierMois = serie.mois(serie.taille() - 1);
         for (int i = 1; i <= nombreMois; i++) {
-            YearMonth moisPrevision = dernierMois.plusMonths(i);
             double x = n + i - 1;
-            double y = a * x + b;
-            
+
             // S'assurer que la prévision n'est pas négative
-            y = Math.max(0, y);
-            
+            double y = Math.max(0, a * x + b);
+
             previsions.add(new PrevisionResult(
-                moisPrevision.atDay(1),
+                dernierMois.plusMonths(i).atDay(1),
                 y,
                 "Régression linéaire (tendance)"
             ));
         }
-        
         return previsions;
     }
 
-    /**
-     * Calcule la tendance des dépenses (hausse, baisse, stable)
-     */
-    public TendanceResult calculerTendance(Long serviceId) {
-        LocalDate fin = LocalDate.now();
-        LocalDate debut = fin.minusMonths(3);
-        
-        List<HistoriqueDepense> depenses = historiqueDepenseRepository
-            .findByServiceIdAndDateBetween(serviceId, debut, fin);
-        
-        Map<YearMonth, Double> depensesParMois = depenses.stream()
-            .collect(Collectors.groupingBy(
-                d -> YearMonth.from(d.getDate()),
-                Collectors.summingDouble(d -> d.getMontant() != null ? d.getMontant() : 0.0)
-            ));
-        
-        List<YearMonth> mois = depensesParMois.keySet().stream()
-            .sorted()
-            .collect(Collectors.toList());
-        
-        if (mois.size() < 2) {
+    private TendanceResult tendanceActuelle(SerieMensuelle serie, int debut) {
+        if (serie.taille() - debut < 2) {
             return new TendanceResult("STABLE", 0.0, "Données insuffisantes");
         }
-        
-        double dernier = depensesParMois.get(mois.get(mois.size() - 1));
-        double avantDernier = depensesParMois.get(mois.get(mois.size() - 2));
-        
-        double variation = ((dernier - avantDernier) / avantDernier) * 100;
-        
+
+        double variation = MoteurPrevision.variation(serie.montants(), debut, serie.taille());
+
         String direction;
         if (variation > 5) {
             direction = "HAUSSE";
@@ -246,7 +266,7 @@ public class PrevisionService {
         } else {
             direction = "STABLE";
         }
-        
+
         return new TendanceResult(
             direction,
             variation,
@@ -254,32 +274,34 @@ public class PrevisionService {
         );
     }
 
+    private List<PrevisionResult> previsionsConstantes(
+            SerieMensuelle serie, int nombreMois, double montant, String methode) {
+        List<PrevisionResult> previsions = new ArrayList<>();
+        YearMonth dernierMois = serie.mois(serie.taille() - 1);
+        for (int i = 1; i <= nombreMois; i++) {
+            previsions.add(new PrevisionResult(
+                dernierMois.plusMonths(i).atDay(1),
+                montant,
+                methode
+            ));
+        }
+        return previsions;
+    }
+
     /**
-     * Simule un scénario what-if
+     * Premier mois d'une fenêtre d'historique de {@code nombreMois} mois.
+     * Les mois sont pris en entier : le mois de début est inclus complètement.
      */
-    public List<PrevisionResult> simulerScenario(
-            Long serviceId, Map<String, Double> parametres) {
-        
-        // Récupérer la prévision de base
-        List<PrevisionResult> previsionsBase = prevoirDepensesMoyenneMobile(
-            serviceId, 3, 3);
-        
-        // Appliquer les paramètres de simulation
-        double facteurAugmentation = parametres.getOrDefault("facteurAugmentation", 1.0);
-        double variationPersonnel = parametres.getOrDefault("variationPersonnel", 0.0);
-        double variationMateriel = parametres.getOrDefault("variationMateriel", 0.0);
-        
-        return previsionsBase.stream()
-            .map(p -> {
-                double nouveauMontant = p.montant * facteurAugmentation;
-                nouveauMontant += variationPersonnel + variationMateriel;
-                return new PrevisionResult(
-                    p.date,
-                    Math.max(0, nouveauMontant),
-                    "Simulation: " + p.methode
-                );
-            })
-            .collect(Collectors.toList());
+    private static YearMonth debutFenetre(int nombreMois) {
+        return YearMonth.from(LocalDate.now().minusMonths(nombreMois));
+    }
+
+    /**
+     * Charge la série mensuelle d'un service depuis les agrégats mensuels
+     */
+    private SerieMensuelle chargerSerie(Long serviceId, YearMonth debut) {
+        return SerieMensuelle.depuisLignes(depenseMensuelleRepository
+            .calculerTotauxMensuels(serviceId, debut.atDay(1), LocalDate.now()));
     }
 
     /**
@@ -311,5 +333,24 @@ public class PrevisionService {
             this.description = description;
         }
     }
-}
 
+    /**
+     * Classe interne regroupant toutes les méthodes de prévision d'un service
+     */
+    public static class PrevisionsCompletes {
+        public List<PrevisionResult> moyenneMobile;
+        public List<PrevisionResult> moyenneMobilePonderee;
+        public List<PrevisionResult> tendance;
+        public TendanceResult tendanceActuelle;
+
+        public PrevisionsCompletes(List<PrevisionResult> moyenneMobile,
+                                   List<PrevisionResult> moyenneMobilePonderee,
+                                   List<PrevisionResult> tendance,
+                                   TendanceResult tendanceActuelle) {
+            this.moyenneMobile = moyenneMobile;
+            this.moyenneMobilePonderee = moyenneMobilePonderee;
+            this.tendance = tendance;
+            this.tendanceActuelle = tendanceActuelle;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.hospital.service;
+
+import com.hospital.dto.SerieRendezVousRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Développement de la règle de récurrence d'une série de rendez-vous en
+ * occurrences, dans l'ordre chronologique, à l'heure de la première occurrence.
+ *
+ * Comme pour RRULE, une série mensuelle garde le jour du mois de la première
+ * occurrence et saute les mois qui n'ont pas ce jour (31, 30, 29 février).
+ */
+@Component
+public class RecurrenceRendezVous {
+
+    private final int occurrencesMax;
+
+    public RecurrenceRendezVous(@Value("${rendezvous.series.occurrences-max:200}") int occurrencesMax) {
+        this.occurrencesMax = occurrencesMax;
+    }
+
+    /**
+     * Occurrences de la série : le développement s'arrête au nombre demandé, à la
+     * date de fin, ou une occurrence au-delà du maximum (la série est alors refusée)
+     *
+     * @throws IllegalArgumentException si la règle est incomplète, ne donne aucune
+     *         occurrence ou en donne plus que le maximum autorisé
+     */
+    public List<LocalDateTime> developper(SerieRendezVousRequest regle) {
+        if (regle.getNombre() == null && regle.getJusquAu() == null) {
+            throw new IllegalArgumentException("Le nombre d'occurrences ou la date de fin de la série est obligatoire");
+        }
+        if (regle.getNombre() != null && regle.getNombre() > occurrencesMax) {
+            throw new IllegalArgumentException("Une série ne peut pas dépasser " + occurrencesMax + " occurrences");
+        }
+        int intervalle = regle.getIntervalle() != null ? regle.getIntervalle() : 1;
+        if (intervalle < 1) {
+            throw new IllegalArgumentException("L'intervalle doit être positif");
+        }
+        int nombre = regle.getNombre() != null ? regle.getNombre() : occurrencesMax + 1;
+        LocalDate jusquAu = regle.getJusquAu() != null ? regle.getJusquAu() : LocalDate.MAX;
+
+        List<LocalDate> jours = switch (regle.getFrequence()) {
+            case QUOTIDIENNE -> quotidienne(regle.getDebut().toLocalDate(), intervalle, nombre, jusquAu);
+            case HEBDOMADAIRE -> hebdomadaire(regle.getDebut().toLocalDate(), intervalle, regle.getJoursSemaine(),
+                                              nombre, jusquAu);
+            case MENSUELLE -> mensuelle(regle.getDebut().toLocalDate(), intervalle, nombre, jusquAu);
+        };
+        if (jours.isEmpty()) {
+            throw new IllegalArgumentException("La série ne contient aucune occurrence");
+        }
+        if (jours.size() > occurrencesMax) {
+            throw new IllegalArgumentException("Une série ne peut pas dépasser " + occurrencesMax + " occurrences");
+        }
+
+        List<LocalDateTime> occurrences = new ArrayList<>(jours.size());
+        for (LocalDate jour : jours) {
+            occurrences.add(jour.atTime(regle.getDebut().toLocalTime()));
+        }
+        return occurrences;
+    }
+
+    private List<LocalDate> quotidienne(LocalDate debut, int intervalle, int nombre, LocalDate jusquAu) {
+        List<LocalDate> jours = new ArrayList<>();
+        for (LocalDate jour = debut; jours.size() < nombre && jours.size() <= occurrencesMax && !jour.isAfter(jusquAu);
+             jour = jour.plusDays(intervalle)) {
+            jours.add(jour);
+        }
+        return jours;
+    }
+
+    private List<LocalDate> hebdomadaire(LocalDate debut, int intervalle, List<DayOfWeek> joursSemaine,
+                                         int nombre, LocalDate jusquAu) {
+        TreeSet<DayOfWeek> joursTries = joursSemaine != null && !joursSemaine.isEmpty()
+            ? new TreeSet<>(joursSemaine)
+            : new TreeSet<>(List.of(debut.getDayOfWeek()));
+        List<LocalDate> jours = new ArrayList<>();
+        LocalDate lundi = debut.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        while (jours.size() < nombre && jours.size() <= occurrencesMax && !lundi.isAfter(jusquAu)) {
+            for (DayOfWeek jourSemaine : joursTries) {
+                LocalDate jour = lundi.plusDays(jourSemaine.getValue() - 1L);
+                if (jour.isBefore(debut)) {
+                    continue;
+                }
+                if (jours.size() >= nombre || jour.isAfter(jusquAu)) {
+                    break;
+                }
+                jours.add(jour);
+            }
+            lundi = lundi.plusWeeks(intervalle);
+        }
+        return jours;
+    }
+
+    private List<LocalDate> mensuelle(LocalDate debut, int intervalle, int nombre, LocalDate jusquAu) {
+        List<LocalDate> jours = new ArrayList<>();
+        int jourDuMois = debut.getDayOfMonth();
+        for (YearMonth mois = YearMonth.from(debut);
+             jours.size() < nombre && jours.size() <= occurrencesMax && !mois.atDay(1).isAfter(jusquAu);
+             mois = mois.plusMonths(intervalle)) {
+            if (mois.isValidDay(jourDuMois)) {
+                LocalDate jour = mois.atDay(jourDuMois);
+                if (jour.isAfter(jusquAu)) {
+                    break;
+                }
+                jours.add(jour);
+            }
+        }
+        return jours;
+    }
+}
@@ -1,71 +1,493 @@
 package com.hospital.service;
 
+import com.hospital.dto.AgendaJourDTO;
+import com.hospital.dto.CompteursRendezVousDTO;
+import com.hospital.dto.CreneauLibreDTO;
+import com.hospital.dto.PageCurseur;
+import com.hospital.dto.RapportReservationLotDTO;
+import com.hospital.dto.RapportSerieRendezVousDTO;
+import com.hospital.dto.RendezVousResumeDTO;
+import com.hospital.dto.SerieRendezVousRequest;
+import com.hospital.model.Patient;
 import com.hospital.model.RendezVous;
+import com.hospital.repository.PatientRepository;
 import com.hospital.repository.RendezVousRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class RendezVousService {
 
+    // Occurrences d'une série encore modifiables et annulables
+    private static final Set<RendezVous.StatutRendezVous> STATUTS_A_VENIR =
+        EnumSet.of(RendezVous.StatutRendezVous.EN_ATTENTE, RendezVous.StatutRendezVous.CONFIRME);
+
     private final RendezVousRepository rendezVousRepository;
+    private final PatientRepository patientRepository;
+    private final PlanningRendezVous planningRendezVous;
+    private final CacheAgenda cacheAgenda;
+    private final CompteursRendezVous compteursRendezVous;
+    private final RecurrenceRendezVous recurrenceRendezVous;
+    private final EntityManager entityManager;
 
+    @Transactional(readOnly = true)
     public List<RendezVous> getAllRendezVous() {
-        return rendezVousRepository.findAll();
+        return rendezVousRepository.findAllAvecPatient();
+    }
+
+    /**
+     * Page de rendez-vous après le curseur (identifiant), triée par identifiant
+     */
+    @Transactional(readOnly = true)
+    public PageCurseur<RendezVous> getRendezVousPage(Long apres, int taille) {
+        List<RendezVous> lignes = rendezVousRepository.findPageApres(
+            apres != null ? apres : 0L, Limit.of(taille + 1));
+        return PageCurseur.depuis(lignes, taille, RendezVous::getId);
+    }
+
+    /**
+     * Transmet tous les rendez-vous un par un, sans les charger tous en mémoire
+     */
+    @Transactional(readOnly = true)
+    public long exporterRendezVous(Consumer<RendezVous> consommateur) {
+        return ParcoursFlux.parcourir(rendezVousRepository.streamAll(), entityManager, consommateur);
     }
 
+    @Transactional(readOnly = true)
     public Optional<RendezVous> getRendezVousById(Long id) {
-        return rendezVousRepository.findById(id);
+        return rendezVousRepository.findAvecPatientById(id);
+    }
+
+    /**
+     * Rendez-vous d'un patient (fiche patient), du plus récent au plus ancien
+     */
+    @Transactional(readOnly = true)
+    public List<RendezVousResumeDTO> getRendezVousByPatientId(Long patientId) {
+        return rendezVousRepository.findResumesParPatient(patientId);
+    }
+
+    /**
+     * Rendez-vous d'un jour, triés par heure (depuis le cache de l'agenda)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<RendezVousResumeDTO> getRendezVousByDate(LocalDate date) {
+        return cacheAgenda.getAgenda(date).getRendezVous();
     }
 
-    public List<RendezVous> getRendezVousByPatientId(Long patientId) {
-        return rendezVousRepository.findByPatientId(patientId);
+    /**
+     * Agenda d'un jour : rendez-vous triés par heure et regroupés par statut
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public AgendaJourDTO getAgenda(LocalDate date) {
+        return cacheAgenda.getAgenda(date);
     }
 
-    public List<RendezVous> getRendezVousByDate(LocalDate date) {
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-        return rendezVousRepository.findByDateHeureBetween(startOfDay, endOfDay);
+    /**
+     * Statistiques du cache de l'agenda
+     */
+    public Map<String, Object> getStatistiquesAgenda() {
+        return cacheAgenda.statistiques();
     }
 
+    /**
+     * Nombre de rendez-vous par statut, pour un jour et au total (compteurs en mémoire)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CompteursRendezVousDTO getCompteurs(LocalDate date) {
+        return compteursRendezVous.getCompteurs(date);
+    }
+
+    /**
+     * Crée un rendez-vous si son créneau est libre
+     *
+     * @throws PlanningRendezVous.ConflitRendezVousException si le créneau est occupé
+     */
     public RendezVous createRendezVous(RendezVous rendezVous) {
-        return rendezVousRepository.save(rendezVous);
+        resoudrePatient(rendezVous, chargerPatients(List.of(rendezVous)));
+        PlanningRendezVous.Reservation reservation = planifier(rendezVous);
+        RendezVous cree = rendezVousRepository.save(rendezVous);
+        planningRendezVous.remplacerApresCommit(cree.getId(), null, reservation);
+        cacheAgenda.enregistrerApresCommit(resume(cree), null);
+        compteursRendezVous.remplacerApresCommit(null, null, cree.getDateHeure().toLocalDate(), cree.getStatut());
+        return cree;
     }
 
+    /**
+     * Crée plusieurs rendez-vous en une transaction. Chaque demande est
+     * vérifiée contre le planning et contre les demandes précédentes du lot ;
+     * les demandes refusées (conflit, durée invalide) sont listées dans le rapport.
+     */
+    public RapportReservationLotDTO reserverLot(List<RendezVous> demandes) {
+        long debut = System.currentTimeMillis();
+        List<RendezVous> acceptes = new ArrayList<>();
+        List<PlanningRendezVous.Reservation> reservations = new ArrayList<>();
+        Map<Integer, String> refus = new LinkedHashMap<>();
+        Map<Long, Patient> patients = chargerPatients(demandes);
+
+        for (int i = 0; i < demandes.size(); i++) {
+            RendezVous rendezVous = demandes.get(i);
+            try {
+                resoudrePatient(rendezVous, patients);
+                reservations.add(planifier(rendezVous));
+                acceptes.add(rendezVous);
+            } catch (PlanningRendezVous.ConflitRendezVousException | IllegalArgumentException e) {
+                refus.put(i, e.getMessage());
+            }
+        }
+
+        List<RendezVous> crees = rendezVousRepository.saveAll(acceptes);
+        List<Long> ids = new ArrayList<>(crees.size());
+        for (int i = 0; i < crees.size(); i++) {
+            RendezVous cree = crees.get(i);
+            planningRendezVous.remplacerApresCommit(cree.getId(), null, reservations.get(i));
+            cacheAgenda.enregistrerApresCommit(resume(cree), null);
+            compteursRendezVous.remplacerApresCommit(null, null, cree.getDateHeure().toLocalDate(), cree.getStatut());
+            ids.add(cree.getId());
+        }
+        return new RapportReservationLotDTO(demandes.size(), ids, refus, System.currentTimeMillis() - debut);
+    }
+
+    /**
+     * Crée une série de rendez-vous récurrents en une transaction : toutes les
+     * occurrences sont vérifiées en une passe contre le planning, puis
+     * enregistrées par insertions groupées. Une occurrence en conflit fait
+     * refuser la série, sauf en mode partiel où elle est seulement ignorée.
+     *
+     * @throws PlanningRendezVous.ConflitRendezVousException si une occurrence est en conflit (hors mode partiel)
+     * @throws IllegalArgumentException si la règle, la durée ou le patient est invalide
+     */
+    public RapportSerieRendezVousDTO creerSerie(SerieRendezVousRequest demande) {
+        long debut = System.currentTimeMillis();
+        List<LocalDateTime> occurrences = recurrenceRendezVous.developper(demande);
+        Patient patient = patientRepository.findById(demande.getPatientId())
+            .orElseThrow(() -> new IllegalArgumentException("Patient non trouvé: " + demande.getPatientId()));
+        int duree = planningRendezVous.duree(demande.getDureeMinutes());
+
+        PlanningRendezVous.ReservationsSerie reservations =
+            planningRendezVous.reserverSerie(occurrences, duree, patient.getId());
+        Map<LocalDateTime, String> conflits = new LinkedHashMap<>();
+        reservations.conflits().forEach((i, motif) -> conflits.put(occurrences.get(i), motif));
+        if (!conflits.isEmpty() && !demande.isPartielle()) {
+            // Les créneaux retenus sont libérés avec l'annulation de la transaction
+            throw new PlanningRendezVous.ConflitRendezVousException(String.format(
+                "%d occurrence(s) sur %d en conflit : %s", conflits.size(), occurrences.size(),
+                String.join(" ; ", conflits.values().stream().limit(5).toList())));
+        }
+
+        String serieId = UUID.randomUUID().toString();
+        List<RendezVous> acceptes = new ArrayList<>(occurrences.size());
+        List<PlanningRendezVous.Reservation> retenues = new ArrayList<>(occurrences.size());
+        for (int i = 0; i < occurrences.size(); i++) {
+            PlanningRendezVous.Reservation reservation = reservations.reservations().get(i);
+            if (reservation != null) {
+                RendezVous rendezVous = new RendezVous();
+                rendezVous.setPatient(patient);
+                rendezVous.setDateHeure(occurrences.get(i));
+                rendezVous.setDureeMinutes(duree);
+                rendezVous.setMotif(demande.getMotif());
+                rendezVous.setNotes(demande.getNotes());
+                rendezVous.setSerieId(serieId);
+                acceptes.add(rendezVous);
+                retenues.add(reservation);
+            }
+        }
+
+        List<RendezVous> crees = rendezVousRepository.saveAll(acceptes);
+        List<Long> ids = new ArrayList<>(crees.size());
+        for (int i = 0; i < crees.size(); i++) {
+            RendezVous cree = crees.get(i);
+            planningRendezVous.remplacerApresCommit(cree.getId(), null, retenues.get(i));
+            cacheAgenda.enregistrerApresCommit(resume(cree), null);
+            compteursRendezVous.remplacerApresCommit(null, null, cree.getDateHeure().toLocalDate(), cree.getStatut());
+            ids.add(cree.getId());
+        }
+        return new RapportSerieRendezVousDTO(serieId, occurrences.size(), ids, conflits,
+                                             System.currentTimeMillis() - debut);
+    }
+
+    /**
+     * Occurrences d'une série, triées par heure
+     */
+    @Transactional(readOnly = true)
+    public List<RendezVousResumeDTO> getSerie(String serieId) {
+        return rendezVousRepository.findResumesParSerie(serieId);
+    }
+
+    /**
+     * Modifie le motif et les notes (si renseignés) des occurrences à venir
+     * d'une série à partir d'une date, en une requête. Le déplacement d'une
+     * série, qui demande de revérifier le planning, passe par son annulation
+     * et la création d'une nouvelle série.
+     *
+     * @return Nombre d'occurrences modifiées
+     */
+    public int modifierSerie(String serieId, LocalDateTime depuis, String motif, String notes) {
+        int modifies = rendezVousRepository.modifierSerie(serieId, depuis, STATUTS_A_VENIR, motif, notes);
+        if (modifies > 0) {
+            for (RendezVousResumeDTO rendezVous : rendezVousRepository.findResumesParSerie(serieId, depuis)) {
+                if (STATUTS_A_VENIR.contains(rendezVous.getStatut())) {
+                    cacheAgenda.enregistrerApresCommit(rendezVous, rendezVous.getDateHeure().toLocalDate());
+                }
+            }
+        }
+        return modifies;
+    }
+
+    /**
+     * Annule les occurrences à venir d'une série à partir d'une date, en une
+     * requête, et libère leurs créneaux
+     *
+     * @return Nombre d'occurrences annulées
+     */
+    public int annulerSerie(String serieId, LocalDateTime depuis) {
+        List<RendezVousResumeDTO> occurrences = rendezVousRepository.findResumesParSerie(serieId, depuis);
+        int annules = rendezVousRepository.changerStatutSerie(
+            serieId, depuis, STATUTS_A_VENIR, RendezVous.StatutRendezVous.ANNULE);
+
+        for (RendezVousResumeDTO rendezVous : occurrences) {
+            RendezVous.StatutRendezVous ancienStatut = rendezVous.getStatut();
+            if (!STATUTS_A_VENIR.contains(ancienStatut)) {
+                continue;
+            }
+            LocalDate jour = rendezVous.getDateHeure().toLocalDate();
+            rendezVous.setStatut(RendezVous.StatutRendezVous.ANNULE);
+            if (PlanningRendezVous.occupe(ancienStatut)) {
+                planningRendezVous.remplacerApresCommit(rendezVous.getId(), jour, null);
+            }
+            cacheAgenda.enregistrerApresCommit(rendezVous, jour);
+            compteursRendezVous.remplacerApresCommit(jour, ancienStatut, jour, RendezVous.StatutRendezVous.ANNULE);
+        }
+        return annules;
+    }
+
+    /**
+     * Créneaux libres du planning (aucune lecture des rendez-vous en base
+     * pour les journées déjà chargées)
+     */
+    @Transactional(readOnly = true)
+    public List<CreneauLibreDTO> trouverCreneauxLibres(LocalDate du, LocalDate au, LocalTime debut, LocalTime fin,
+                                                      Integer dureeMinutes, int limite, Long patientId) {
+        int duree = planningRendezVous.duree(dureeMinutes);
+        planningRendezVous.valider(du.atStartOfDay(), duree);
+        return planningRendezVous.trouverCreneauxLibres(du, au, debut, fin, duree, limite, patientId);
+    }
+
+    /**
+     * Modifie un rendez-vous ; un nouveau statut doit être atteignable depuis le statut actuel
+     *
+     * @throws PlanningRendezVous.ConflitRendezVousException si le nouveau créneau est occupé
+     * @throws TransitionStatutException si le changement de statut n'est pas autorisé
+     */
     public RendezVous updateRendezVous(Long id, RendezVous rendezVousDetails) {
-        RendezVous rendezVous = rendezVousRepository.findById(id)
+        RendezVous rendezVous = rendezVousRepository.findAvecPatientById(id)
                 .orElseThrow(() -> new RuntimeException("RendezVous not found with id: " + id));
         
+        LocalDateTime ancienneDate = rendezVous.getDateHeure();
+        RendezVous.StatutRendezVous ancienStatut = rendezVous.getStatut();
+        int ancienneDuree = planningRendezVous.duree(rendezVous.getDureeMinutes());
+        Long ancienPatientId = patientId(rendezVous);
+        boolean occupait = PlanningRendezVous.occupe(rendezVous.getStatut());
+
         rendezVous.setDateHeure(rendezVousDetails.getDateHeure());
+        if (rendezVousDetails.getDureeMinutes() != null) {
+            rendezVous.setDureeMinutes(rendezVousDetails.getDureeMinutes());
+        }
         rendezVous.setMotif(rendezVousDetails.getMotif());
-        rendezVous.setStatut(rendezVousDetails.getStatut());
+        if (rendezVousDetails.getStatut() != null) {
+            changerStatut(rendezVous, rendezVousDetails.getStatut());
+        }
         rendezVous.setNotes(rendezVousDetails.getNotes());
         if (rendezVousDetails.getPatient() != null) {
             rendezVous.setPatient(rendezVousDetails.getPatient());
+            resoudrePatient(rendezVous, chargerPatients(List.of(rendezVous)));
         }
+        replanifier(rendezVous, ancienneDate, ancienneDuree, ancienPatientId, occupait);
         
-        return rendezVousRepository.save(rendezVous);
+        RendezVous modifie = rendezVousRepository.save(rendezVous);
+        cacheAgenda.enregistrerApresCommit(resume(modifie), ancienneDate.toLocalDate());
+        compteursRendezVous.remplacerApresCommit(ancienneDate.toLocalDate(), ancienStatut,
+                                                 modifie.getDateHeure().toLocalDate(), modifie.getStatut());
+        return modifie;
     }
 
-    public RendezVous updateStatut(Long id, String statut) {
-        RendezVous rendezVous = rendezVousRepository.findById(id)
+    /**
+     * Change le statut d'un rendez-vous (un rendez-vous rétabli reprend son créneau s'il est libre)
+     *
+     * @throws PlanningRendezVous.ConflitRendezVousException si le créneau d'un rendez-vous rétabli est occupé
+     * @throws TransitionStatutException si le changement de statut n'est pas autorisé
+     */
+    public RendezVous updateStatut(Long id, RendezVous.StatutRendezVous statut) {
+        RendezVous rendezVous = rendezVousRepository.findAvecPatientById(id)
                 .orElseThrow(() -> new RuntimeException("RendezVous not found with id: " + id));
-        rendezVous.setStatut(statut);
-        return rendezVousRepository.save(rendezVous);
+        RendezVous.StatutRendezVous ancienStatut = rendezVous.getStatut();
+        boolean occupait = PlanningRendezVous.occupe(ancienStatut);
+        changerStatut(rendezVous, statut);
+        replanifier(rendezVous, rendezVous.getDateHeure(),
+                    planningRendezVous.duree(rendezVous.getDureeMinutes()), patientId(rendezVous), occupait);
+        RendezVous modifie = rendezVousRepository.save(rendezVous);
+        LocalDate jour = modifie.getDateHeure().toLocalDate();
+        cacheAgenda.enregistrerApresCommit(resume(modifie), jour);
+        compteursRendezVous.remplacerApresCommit(jour, ancienStatut, jour, modifie.getStatut());
+        return modifie;
     }
 
     public void deleteRendezVous(Long id) {
         RendezVous rendezVous = rendezVousRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("RendezVous not found with id: " + id));
         rendezVousRepository.delete(rendezVous);
+        if (PlanningRendezVous.occupe(rendezVous.getStatut())) {
+            planningRendezVous.remplacerApresCommit(id, rendezVous.getDateHeure().toLocalDate(), null);
+        }
+        cacheAgenda.retirerApresCommit(id, rendezVous.getDateHeure().toLocalDate());
+        compteursRendezVous.remplacerApresCommit(rendezVous.getDateHeure().toLocalDate(), rendezVous.getStatut(),
+                                                 null, null);
+    }
+
+    /**
+     * Applique un changement de statut s'il respecte le cycle de vie
+     *
+     * @throws TransitionStatutException si la transition n'est pas autorisée
+     */
+    private static void changerStatut(RendezVous rendezVous, RendezVous.StatutRendezVous statut) {
+        if (!rendezVous.getStatut().peutPasserA(statut)) {
+            throw new TransitionStatutException(rendezVous.getStatut(), statut);
+        }
+        rendezVous.setStatut(statut);
+    }
+
+    /**
+     * Charge en une requête les patients référencés par les rendez-vous
+     * (reçus le plus souvent réduits à leur identifiant)
+     */
+    private Map<Long, Patient> chargerPatients(List<RendezVous> rendezVous) {
+        List<Long> ids = rendezVous.stream()
+            .map(RendezVous::getPatient)
+            .filter(p -> p != null && p.getId() != null)
+            .map(Patient::getId)
+            .distinct()
+            .toList();
+        Map<Long, Patient> patients = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Patient patient : patientRepository.findAllById(ids)) {
+                patients.put(patient.getId(), patient);
+            }
+        }
+        return patients;
+    }
+
+    /**
+     * Remplace le patient reçu par le patient en base (l'agenda affiche son nom)
+     *
+     * @throws IllegalArgumentException si le patient n'existe pas
+     */
+    private static void resoudrePatient(RendezVous rendezVous, Map<Long, Patient> patients) {
+        if (rendezVous.getPatient() == null || rendezVous.getPatient().getId() == null) {
+            return;
+        }
+        Patient patient = patients.get(rendezVous.getPatient().getId());
+        if (patient == null) {
+            throw new IllegalArgumentException("Patient non trouvé: " + rendezVous.getPatient().getId());
+        }
+        rendezVous.setPatient(patient);
+    }
+
+    private static Long patientId(RendezVous rendezVous) {
+        return rendezVous.getPatient() != null ? rendezVous.getPatient().getId() : null;
+    }
+
+    /**
+     * Projection d'un rendez-vous pour l'agenda (même forme que les requêtes du dépôt)
+     */
+    private static RendezVousResumeDTO resume(RendezVous rendezVous) {
+        Patient patient = rendezVous.getPatient();
+        return new RendezVousResumeDTO(
+            rendezVous.getId(),
+            rendezVous.getDateHeure(),
+            rendezVous.getDureeMinutes(),
+            rendezVous.getMotif(),
+            rendezVous.getStatut(),
+            rendezVous.getNotes(),
+            patient != null ? patient.getId() : null,
+            patient != null && patient.getNom() != null && patient.getPrenom() != null
+                ? patient.getPrenom() + " " + patient.getNom()
+                : null,
+            rendezVous.getSerieId()
+        );
+    }
+
+    /**
+     * Vérifie un nouveau rendez-vous et retient son créneau s'il en occupe un
+     */
+    private PlanningRendezVous.Reservation planifier(RendezVous rendezVous) {
+        if (rendezVous.getStatut() == null) {
+            rendezVous.setStatut(RendezVous.StatutRendezVous.EN_ATTENTE);
+        }
+        rendezVous.setDureeMinutes(planningRendezVous.duree(rendezVous.getDureeMinutes()));
+        if (!PlanningRendezVous.occupe(rendezVous.getStatut())) {
+            planningRendezVous.valider(rendezVous.getDateHeure(), rendezVous.getDureeMinutes());
+            return null;
+        }
+        return planningRendezVous.reserver(rendezVous.getDateHeure(), rendezVous.getDureeMinutes(),
+                                           patientId(rendezVous), null);
+    }
+
+    /**
+     * Met à jour le planning après modification d'un rendez-vous : le nouveau
+     * créneau n'est vérifié que s'il a changé (horaire, durée ou patient) ou si
+     * le rendez-vous n'occupait pas de créneau auparavant (rendez-vous annulé puis rétabli)
+     */
+    private void replanifier(RendezVous rendezVous, LocalDateTime ancienneDate, int ancienneDuree,
+                             Long ancienPatientId, boolean occupait) {
+        int duree = planningRendezVous.duree(rendezVous.getDureeMinutes());
+        boolean occupe = PlanningRendezVous.occupe(rendezVous.getStatut());
+        boolean memeCreneau = rendezVous.getDateHeure() != null
+            && rendezVous.getDateHeure().equals(ancienneDate) && duree == ancienneDuree
+            && Objects.equals(patientId(rendezVous), ancienPatientId);
+        LocalDate jourPrecedent = occupait ? ancienneDate.toLocalDate() : null;
+
+        if (occupe && (!occupait || !memeCreneau)) {
+            PlanningRendezVous.Reservation reservation =
+                planningRendezVous.reserver(rendezVous.getDateHeure(), duree, patientId(rendezVous),
+                                            rendezVous.getId());
+            planningRendezVous.remplacerApresCommit(rendezVous.getId(), jourPrecedent, reservation);
+        } else {
+            if (!memeCreneau) {
+                planningRendezVous.valider(rendezVous.getDateHeure(), duree);
+            }
+            if (occupait && !occupe) {
+                planningRendezVous.remplacerApresCommit(rendezVous.getId(), jourPrecedent, null);
+            }
+        }
+    }
+
+    /**
+     * Changement de statut non autorisé par le cycle de vie du rendez-vous
+     */
+    public static class TransitionStatutException extends RuntimeException {
+        public TransitionStatutException(RendezVous.StatutRendezVous depuis, RendezVous.StatutRendezVous vers) {
+            super("Un rendez-vous \"" + depuis.getLibelle() + "\" ne peut pas passer au statut \""
+                  + vers.getLibelle() + "\"");
+        }
     }
 }
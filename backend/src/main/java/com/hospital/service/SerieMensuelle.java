@@ -0,0 +1,114 @@
+package com.hospital.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Série chronologique des dépenses mensuelles d'un service.
+ * Les mois (codés en nombre de mois depuis l'an 0) et les montants sont
+ * stockés dans des tableaux primitifs triés par mois croissant ; les mois
+ * sans dépense sont absents de la série.
+ */
+public final class SerieMensuelle {
+
+    private static final SerieMensuelle VIDE = new SerieMensuelle(new int[0], new double[0]);
+
+    private final int[] mois;
+    private final double[] montants;
+
+    public SerieMensuelle(int[] mois, double[] montants) {
+        if (mois.length != montants.length) {
+            throw new IllegalArgumentException("Mois et montants de tailles différentes");
+        }
+        this.mois = mois;
+        this.montants = montants;
+    }
+
+    public static SerieMensuelle vide() {
+        return VIDE;
+    }
+
+    /**
+     * Construit une série à partir de lignes [mois (LocalDate), montant] triées par mois
+     */
+    public static SerieMensuelle depuisLignes(List<Object[]> lignes) {
+        int[] mois = new int[lignes.size()];
+        double[] montants = new double[lignes.size()];
+        for (int i = 0; i < lignes.size(); i++) {
+            Object[] ligne = lignes.get(i);
+            mois[i] = code(YearMonth.from((LocalDate) ligne[0]));
+            montants[i] = ligne[1] != null ? ((Number) ligne[1]).doubleValue() : 0.0;
+        }
+        return new SerieMensuelle(mois, montants);
+    }
+
+    /**
+     * Découpe des lignes [serviceId, mois (LocalDate), montant] triées par service
+     * puis par mois en une série par service
+     */
+    public static Map<Long, SerieMensuelle> parService(List<Object[]> lignes) {
+        Map<Long, SerieMensuelle> series = new HashMap<>();
+        int debut = 0;
+        while (debut < lignes.size()) {
+            Long serviceId = (Long) lignes.get(debut)[0];
+            int fin = debut;
+            while (fin < lignes.size() && serviceId.equals(lignes.get(fin)[0])) {
+                fin++;
+            }
+            int[] mois = new int[fin - debut];
+            double[] montants = new double[fin - debut];
+            for (int i = debut; i < fin; i++) {
+                Object[] ligne = lignes.get(i);
+                mois[i - debut] = code(YearMonth.from((LocalDate) ligne[1]));
+                montants[i - debut] = ligne[2] != null ? ((Number) ligne[2]).doubleValue() : 0.0;
+            }
+            series.put(serviceId, new SerieMensuelle(mois, montants));
+            debut = fin;
+        }
+        return series;
+    }
+
+    /**
+     * Code un mois en entier (nombre de mois depuis l'an 0)
+     */
+    public static int code(YearMonth mois) {
+        return mois.getYear() * 12 + mois.getMonthValue() - 1;
+    }
+
+    public int taille() {
+        return mois.length;
+    }
+
+    public double[] montants() {
+        return montants;
+    }
+
+    public YearMonth mois(int indice) {
+        int code = mois[indice];
+        return YearMonth.of(Math.floorDiv(code, 12), Math.floorMod(code, 12) + 1);
+    }
+
+    /**
+     * Montants des mois [debut, fin], un par mois, les mois absents valant 0
+     */
+    public double[] densifier(YearMonth debut, YearMonth fin) {
+        int premier = code(debut);
+        double[] valeurs = new double[Math.max(0, code(fin) - premier + 1)];
+        for (int i = indiceDepuis(debut); i < mois.length && mois[i] - premier < valeurs.length; i++) {
+            valeurs[mois[i] - premier] = montants[i];
+        }
+        return valeurs;
+    }
+
+    /**
+     * Indice du premier mois de la série supérieur ou égal au mois donné
+     */
+    public int indiceDepuis(YearMonth debut) {
+        int indice = Arrays.binarySearch(mois, code(debut));
+        return indice >= 0 ? indice : -indice - 1;
+    }
+}
@@ -1,13 +1,17 @@
 package com.hospital.service;
 
+import com.hospital.dto.PageCurseur;
 import com.hospital.model.Soin;
 import com.hospital.repository.SoinRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -15,11 +19,30 @@ import java.util.Optional;
 public class SoinService {
 
     private final SoinRepository soinRepository;
+    private final EntityManager entityManager;
 
     public List<Soin> getAllSoins() {
         return soinRepository.findAll();
     }
 
+    /**
+     * Page de soins après le curseur (identifiant), triée par identifiant
+     */
+    @Transactional(readOnly = true)
+    public PageCurseur<Soin> getSoinsPage(Long apres, int taille) {
+        List<Soin> lignes = soinRepository.findByIdGreaterThanOrderByIdAsc(
+            apres != null ? apres : 0L, Limit.of(taille + 1));
+        return PageCurseur.depuis(lignes, taille, Soin::getId);
+    }
+
+    /**
+     * Transmet tous les soins un par un, sans les charger tous en mémoire
+     */
+    @Transactional(readOnly = true)
+    public long exporterSoins(Consumer<Soin> consommateur) {
+        return ParcoursFlux.parcourir(soinRepository.streamAll(), entityManager, consommateur);
+    }
+
     public Optional<Soin> getSoinById(Long id) {
         return soinRepository.findById(id);
     }
@@ -43,11 +66,11 @@ public class SoinService {
         soin.setCout(soinDetails.getCout());
         soin.setDateSoin(soinDetails.getDateSoin());
         soin.setDescription(soinDetails.getDescription());
-        if (soinDetails.getPatient() != null) {
-            soin.setPatient(soinDetails.getPatient());
+        if (soinDetails.getPatientId() != null) {
+            soin.setPatientId(soinDetails.getPatientId());
         }
-        if (soinDetails.getService() != null) {
-            soin.setService(soinDetails.getService());
+        if (soinDetails.getServiceId() != null) {
+            soin.setServiceId(soinDetails.getServiceId());
         }
         return soinRepository.save(soin);
     }
@@ -0,0 +1,74 @@
+package com.hospital.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Suivi des saisies en cours par client, pour abandonner les recherches
+ * remplacées. Chaque nouvelle requête d'un client (identifié par l'en-tête
+ * X-Client-Id) devient la plus récente ; les recherches précédentes encore
+ * en cours pour ce client sont alors considérées comme annulées.
+ *
+ * Le client peut numéroter ses requêtes (paramètre seq) : une requête dont le
+ * numéro est inférieur au dernier reçu est remplacée d'emblée, même si elle
+ * arrive après (réseau désordonné).
+ */
+@Component
+public class SuiviSaisieClients {
+
+    private static final int CLIENTS_MAX = 10_000;
+    private static final long INACTIVITE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Enregistre une nouvelle requête du client
+     *
+     * @param clientId Identifiant du client, ou null (la requête n'est alors jamais annulée)
+     * @param sequence Numéro de la requête fourni par le client, ou null
+     * @return Indicateur d'annulation : vrai dès qu'une requête plus récente du client est arrivée
+     */
+    public BooleanSupplier demarrer(String clientId, Long sequence) {
+        if (clientId == null || clientId.isBlank()) {
+            return () -> false;
+        }
+        Client client = clients.get(clientId);
+        if (client == null) {
+            if (clients.size() >= CLIENTS_MAX) {
+                purger();
+                if (clients.size() >= CLIENTS_MAX) {
+                    return () -> false;
+                }
+            }
+            client = clients.computeIfAbsent(clientId, id -> new Client());
+        }
+        client.dernierAcces = System.nanoTime();
+
+        long numero = sequence != null
+            ? sequence
+            : client.derniere.incrementAndGet();
+        if (sequence != null) {
+            client.derniere.accumulateAndGet(sequence, Math::max);
+        }
+        AtomicLong derniere = client.derniere;
+        return () -> derniere.get() > numero;
+    }
+
+    /**
+     * Oublie les clients inactifs
+     */
+    private void purger() {
+        long limite = System.nanoTime() - INACTIVITE_NANOS;
+        clients.values().removeIf(client -> client.dernierAcces - limite < 0);
+    }
+
+    private static final class Client {
+        private final AtomicLong derniere = new AtomicLong();
+        private volatile long dernierAcces;
+    }
+}
@@ -0,0 +1,20 @@
+-- Migration PostgreSQL : passage de l'identifiant des rendez-vous de IDENTITY
+-- à une séquence (allocationSize = 50, optimiseur "pooled" de Hibernate).
+--
+-- À exécuter une seule fois, application arrêtée, AVANT de démarrer la version
+-- des séries de rendez-vous, y compris sur une base déjà migrée par
+-- migration_sequences_postgresql.sql (qui ne couvre pas rendez_vous).
+--
+--   psql -h localhost -U postgres -d hospital_db -f migration_sequence_rendez_vous_postgresql.sql
+--
+-- Comme pour les autres tables, la séquence est positionnée à MAX(id) + 51 pour
+-- que le premier bloc [valeur - 49, valeur] commence après MAX(id).
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS rendez_vous_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('rendez_vous_seq', COALESCE((SELECT MAX(id) FROM rendez_vous), 0) + 51, false);
+ALTER TABLE rendez_vous ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE rendez_vous ALTER COLUMN id DROP DEFAULT;
+
+COMMIT;
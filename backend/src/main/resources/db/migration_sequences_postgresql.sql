@@ -0,0 +1,58 @@
+-- Migration PostgreSQL : passage des identifiants IDENTITY aux séquences
+-- (allocationSize = 50, optimiseur "pooled" de Hibernate).
+--
+-- À exécuter une seule fois, application arrêtée, AVANT de démarrer la version
+-- utilisant les séquences (sinon ddl-auto=update crée des séquences qui
+-- repartent de 1 et les insertions entrent en conflit avec les lignes existantes).
+--
+--   psql -h localhost -U postgres -d hospital_db -f migration_sequences_postgresql.sql
+--
+-- Avec l'optimiseur pooled, la valeur lue dans la séquence est la borne haute
+-- du bloc : le bloc suivant couvre [valeur - 49, valeur]. La séquence est donc
+-- positionnée à MAX(id) + 51 pour que le premier bloc commence après MAX(id).
+
+BEGIN;
+
+-- patient
+CREATE SEQUENCE IF NOT EXISTS patient_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('patient_seq', COALESCE((SELECT MAX(id) FROM patient), 0) + 51, false);
+ALTER TABLE patient ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE patient ALTER COLUMN id DROP DEFAULT;
+
+-- soin
+CREATE SEQUENCE IF NOT EXISTS soin_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('soin_seq', COALESCE((SELECT MAX(id) FROM soin), 0) + 51, false);
+ALTER TABLE soin ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE soin ALTER COLUMN id DROP DEFAULT;
+
+-- cout_soin
+CREATE SEQUENCE IF NOT EXISTS cout_soin_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('cout_soin_seq', COALESCE((SELECT MAX(id) FROM cout_soin), 0) + 51, false);
+ALTER TABLE cout_soin ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE cout_soin ALTER COLUMN id DROP DEFAULT;
+
+-- historique_depense
+CREATE SEQUENCE IF NOT EXISTS historique_depense_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('historique_depense_seq', COALESCE((SELECT MAX(id) FROM historique_depense), 0) + 51, false);
+ALTER TABLE historique_depense ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE historique_depense ALTER COLUMN id DROP DEFAULT;
+
+-- depense_mensuelle
+CREATE SEQUENCE IF NOT EXISTS depense_mensuelle_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('depense_mensuelle_seq', COALESCE((SELECT MAX(id) FROM depense_mensuelle), 0) + 51, false);
+ALTER TABLE depense_mensuelle ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE depense_mensuelle ALTER COLUMN id DROP DEFAULT;
+
+-- budget_service
+CREATE SEQUENCE IF NOT EXISTS budget_service_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('budget_service_seq', COALESCE((SELECT MAX(id) FROM budget_service), 0) + 51, false);
+ALTER TABLE budget_service ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE budget_service ALTER COLUMN id DROP DEFAULT;
+
+-- alerte
+CREATE SEQUENCE IF NOT EXISTS alerte_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('alerte_seq', COALESCE((SELECT MAX(id) FROM alerte), 0) + 51, false);
+ALTER TABLE alerte ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE alerte ALTER COLUMN id DROP DEFAULT;
+
+COMMIT;
@@ -0,0 +1,29 @@
+-- Migration PostgreSQL : statut des rendez-vous stocké sous forme de code (smallint)
+--
+-- À exécuter une seule fois, application arrêtée, AVANT de démarrer la version
+-- utilisant RendezVous.StatutRendezVous (ddl-auto=update ne modifie pas le type
+-- d'une colonne existante).
+--
+--   psql -h localhost -U postgres -d hospital_db -f migration_statut_rendez_vous_postgresql.sql
+--
+-- Codes : 0 En attente, 1 Confirmé, 2 En cours, 3 Terminé, 4 Annulé.
+-- Un libellé inconnu devient "En attente".
+
+BEGIN;
+
+ALTER TABLE rendez_vous ALTER COLUMN statut DROP DEFAULT;
+ALTER TABLE rendez_vous ALTER COLUMN statut TYPE smallint USING (
+    CASE lower(trim(statut))
+        WHEN 'en attente' THEN 0
+        WHEN 'confirmé'   THEN 1
+        WHEN 'en cours'   THEN 2
+        WHEN 'terminé'    THEN 3
+        WHEN 'annulé'     THEN 4
+        ELSE 0
+    END
+);
+ALTER TABLE rendez_vous ALTER COLUMN statut SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_rendez_vous_statut_date_heure ON rendez_vous (statut, date_heure);
+
+COMMIT;
@@ -0,0 +1,121 @@
+package com.hospital.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nombre de requêtes SQL de chaque endpoint de lecture des rendez-vous, mesuré
+ * avec les statistiques Hibernate sur une base H2 en mémoire remplie par le
+ * générateur du profil "loadtest" (10 000 rendez-vous).
+ *
+ * Chaque endpoint est appelé directement sur le contrôleur puis sa réponse est
+ * sérialisée en JSON hors de toute session : un patient non chargé par la
+ * requête fait échouer le test au lieu de déclencher une requête par ligne.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:requetes_rdv;DB_CLOSE_DELAY=-1",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "loadtest.services=3",
+    "loadtest.patients=2000",
+    "loadtest.soins=1000",
+    "loadtest.rendez-vous=10000",
+    "loadtest.annees=1"
+})
+@ActiveProfiles("loadtest")
+class RendezVousControllerRequetesTest {
+
+    @Autowired
+    private RendezVousController controleur;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Statistics statistiques;
+    private LocalDate jourCharge;
+    private Long patientCharge;
+    private Long premierRendezVous;
+
+    @BeforeEach
+    void preparer() {
+        statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        jourCharge = jdbc.queryForObject(
+            "SELECT CAST(date_heure AS DATE) FROM rendez_vous GROUP BY CAST(date_heure AS DATE) " +
+            "ORDER BY COUNT(*) DESC LIMIT 1", LocalDate.class);
+        patientCharge = jdbc.queryForObject(
+            "SELECT patient_id FROM rendez_vous GROUP BY patient_id ORDER BY COUNT(*) DESC LIMIT 1", Long.class);
+        premierRendezVous = jdbc.queryForObject("SELECT MIN(id) FROM rendez_vous", Long.class);
+    }
+
+    @Test
+    void listeComplete_uneRequete() throws Exception {
+        assertThat(requetes(() -> controleur.getAllRendezVous())).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void page_uneRequete() throws Exception {
+        assertThat(requetes(() -> controleur.getRendezVousPage(null, 100))).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void flux_uneRequete() throws Exception {
+        assertThat(requetes(() -> controleur.streamRendezVous())).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void parId_uneRequete() throws Exception {
+        assertThat(requetes(() -> controleur.getRendezVousById(premierRendezVous))).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void parPatient_uneRequete() throws Exception {
+        assertThat(requetes(() -> controleur.getRendezVousByPatient(patientCharge))).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void parDate_uneRequete() throws Exception {
+        assertThat(requetes(() -> controleur.getRendezVousByDate(jourCharge))).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void compteurs_aucuneRequete() throws Exception {
+        assertThat(requetes(() -> controleur.getCompteurs(jourCharge))).isZero();
+    }
+
+    /**
+     * Appelle l'endpoint, écrit sa réponse en JSON et retourne le nombre de requêtes préparées
+     */
+    private long requetes(Callable<ResponseEntity<?>> appel) throws Exception {
+        statistiques.clear();
+        Object corps = appel.call().getBody();
+        OutputStream sortie = OutputStream.nullOutputStream();
+        if (corps instanceof StreamingResponseBody flux) {
+            flux.writeTo(sortie);
+        } else {
+            objectMapper.writeValue(sortie, corps);
+        }
+        return statistiques.getPrepareStatementCount();
+    }
+}